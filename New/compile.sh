@@ -10,6 +10,8 @@ mkdir -p build/classes
 javac -d build/classes -cp src/main/java src/main/java/com/cipherforge/*/*.java src/main/java/com/cipherforge/*.java
 
 if [ $? -eq 0 ]; then
+    # Copy resources (ServiceLoader provider registrations)
+    cp -r src/main/resources/. build/classes/
     echo "✅ Compilation successful!"
     echo "📦 Classes compiled to: build/classes/"
 else
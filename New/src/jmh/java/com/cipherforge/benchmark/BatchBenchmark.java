@@ -0,0 +1,94 @@
+package com.cipherforge.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.registry.CipherRegistry;
+
+/**
+ * Many short messages (20-200 chars) encrypted one encrypt call at a time
+ * against one encryptBatch call, with a shared key and with a key per
+ * message drawn from a small set. Scores are per message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+    private static final int MESSAGES = 1000;
+    private static final int DISTINCT_KEYS = 8;
+    
+    @Param({ "1", "2" })
+    public String cipher;
+    
+    private CipherAlgorithm algorithm;
+    private List<String> messages;
+    private List<String> keys;
+    private String key;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        algorithm = new CipherRegistry().getCipher(cipher);
+        String text = Payloads.text(MESSAGES * 200, Payloads.Charset.ASCII);
+        SplittableRandom random = new SplittableRandom(MESSAGES);
+        messages = new ArrayList<String>(MESSAGES);
+        keys = new ArrayList<String>(MESSAGES);
+        
+        for (int i = 0, start = 0; i < MESSAGES; i++) {
+            int length = 20 + random.nextInt(181);
+            messages.add(text.substring(start, start + length));
+            start += length;
+            // New String instances, as keys arriving with each message would be.
+            keys.add(new String(Payloads.key(algorithm, 1 + random.nextInt(DISTINCT_KEYS))));
+        }
+        key = Payloads.key(algorithm, 5);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void encryptEach(Blackhole blackhole) {
+        for (int i = 0; i < MESSAGES; i++) {
+            blackhole.consume(algorithm.encrypt(messages.get(i), key));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public Object encryptBatch() {
+        return algorithm.encryptBatch(messages, key);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void encryptEachWithOwnKey(Blackhole blackhole) {
+        for (int i = 0; i < MESSAGES; i++) {
+            blackhole.consume(algorithm.encrypt(messages.get(i), keys.get(i)));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public Object encryptBatchWithOwnKey() {
+        return algorithm.encryptBatch(messages, keys);
+    }
+}
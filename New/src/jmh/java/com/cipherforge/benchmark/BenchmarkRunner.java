@@ -0,0 +1,127 @@
+package com.cipherforge.benchmark;
+
+import java.lang.module.ModuleFinder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.cipherforge.core.ByteCipher;
+import com.cipherforge.registry.CipherRegistry;
+
+/**
+ * Runs the JMH benchmarks against every letter cipher in CipherRegistry (byte
+ * ciphers have their own ByteCipherBenchmark) and writes
+ * JSON results to the file named by the jmh.result system property. Standard
+ * JMH arguments are honoured, so a single cipher or payload size can be
+ * selected with e.g. -p cipher=2 -p payloadSize=1024.
+ * Forks get --add-modules jdk.incubator.vector when the JDK has it, so the
+ * vector kernel is measured whenever it was built (-P vector). It is
+ * prepended so that per-class @Fork(jvmArgsAppend) settings still apply.
+ *
+ * With --scaling the selected benchmarks are run at 1, 2, 4, ... threads up
+ * to the number of cores, each step's JSON going to jmh-result-t<n>.json,
+ * and a table of the speedup over one thread is printed at the end.
+ */
+public class BenchmarkRunner {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String SCALING = "--scaling";
+    
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<String>(Arrays.asList(args));
+        boolean scaling = arguments.remove(SCALING);
+        CommandLineOptions commandLine = new CommandLineOptions(arguments.toArray(new String[0]));
+        
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .resultFormat(ResultFormatType.JSON);
+                
+        if (!commandLine.getResult().hasValue()) {
+            options.result(System.getProperty("jmh.result", "jmh-result.json"));
+        }
+        
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include("com\\.cipherforge\\.benchmark\\..*");
+        }
+        
+        if (ModuleFinder.ofSystem().find(VECTOR_MODULE).isPresent()) {
+            List<String> jvmArgs = new ArrayList<String>(commandLine.getJvmArgsPrepend().orElse(new ArrayList<String>()));
+            jvmArgs.add("--add-modules");
+            jvmArgs.add(VECTOR_MODULE);
+            options.jvmArgsPrepend(jvmArgs.toArray(new String[0]));
+        }
+        
+        if (!commandLine.getParameter("cipher").hasValue()) {
+            options.param("cipher", letterCipherIds());
+        }
+        
+        if (!scaling) {
+            new Runner(options.build()).run();
+            return;
+        }
+        
+        String result = commandLine.getResult().orElse(System.getProperty("jmh.result", "jmh-result.json"));
+        Map<String, Map<Integer, Double>> scores = new LinkedHashMap<String, Map<Integer, Double>>();
+        for (int threads : threadCounts()) {
+            options.threads(threads).result(result.replaceFirst("(\\.json)?$", "-t" + threads + "$1"));
+            Collection<RunResult> results = new Runner(options.build()).run();
+            for (RunResult run : results) {
+                StringBuilder name = new StringBuilder(run.getParams().getBenchmark());
+                for (String param : run.getParams().getParamsKeys()) {
+                    name.append(' ').append(param).append('=').append(run.getParams().getParam(param));
+                }
+                Map<Integer, Double> byThreads = scores.get(name.toString());
+                if (byThreads == null) {
+                    byThreads = new LinkedHashMap<Integer, Double>();
+                    scores.put(name.toString(), byThreads);
+                }
+                byThreads.put(threads, run.getPrimaryResult().getScore());
+            }
+        }
+        printScaling(scores);
+    }
+    
+    private static List<Integer> threadCounts() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> counts = new ArrayList<Integer>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(cores);
+        return counts;
+    }
+    
+    private static void printScaling(Map<String, Map<Integer, Double>> scores) {
+        System.out.println();
+        System.out.println("Scaling (speedup over 1 thread; efficiency = speedup / threads)");
+        for (Map.Entry<String, Map<Integer, Double>> benchmark : scores.entrySet()) {
+            System.out.println(benchmark.getKey());
+            Double single = benchmark.getValue().get(1);
+            for (Map.Entry<Integer, Double> step : benchmark.getValue().entrySet()) {
+                double speedup = single != null && single > 0 ? step.getValue() / single : Double.NaN;
+                System.out.printf("  %4d threads  %14.3f  x%6.2f  %5.1f%%%n", step.getKey(), step.getValue(), speedup,
+                        100 * speedup / step.getKey());
+            }
+        }
+    }
+    
+    private static String[] letterCipherIds() {
+        CipherRegistry registry = new CipherRegistry();
+        List<String> ids = new ArrayList<String>();
+        for (String id : registry.getCipherIds()) {
+            if (!(registry.getCipher(id) instanceof ByteCipher)) {
+                ids.add(id);
+            }
+        }
+        return ids.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,95 @@
+package com.cipherforge.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cipherforge.core.ByteCipher;
+import com.cipherforge.core.ByteKey;
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.registry.CipherRegistry;
+
+/**
+ * Byte ciphers on heap and direct buffers, against the letter Vigenere
+ * cipher's file path on the same bytes (UTF-8 decode, shift, encode). The
+ * parameter is byteCipher rather than cipher so BenchmarkRunner's default
+ * letter cipher list does not apply.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteCipherBenchmark {
+    
+    @Param({ "3", "4" })
+    public String byteCipher;
+    
+    @Param({ "1024", "65536", "1048576" })
+    public int payloadSize;
+    
+    private ByteKey key;
+    private CompiledKey letterKey;
+    private byte[] array;
+    private ByteBuffer heap;
+    private ByteBuffer direct;
+    private byte[] source;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        CipherRegistry registry = new CipherRegistry();
+        CipherAlgorithm cipher = registry.getCipher(byteCipher);
+        if (!(cipher instanceof ByteCipher)) {
+            throw new IllegalStateException("No byte cipher registered under id " + byteCipher);
+        }
+        
+        key = ((ByteCipher) cipher).compileByteKey(Payloads.key(cipher, 5));
+        CipherAlgorithm vigenere = registry.findCipher("vigenere");
+        letterKey = vigenere.compileKey(Payloads.key(vigenere, 5));
+        
+        source = Payloads.text(payloadSize, Payloads.Charset.ASCII).getBytes(StandardCharsets.UTF_8);
+        array = source.clone();
+        heap = ByteBuffer.wrap(source.clone());
+        direct = ByteBuffer.allocateDirect(source.length);
+        direct.put(source).flip();
+    }
+    
+    @Benchmark
+    public int byteArray() {
+        return key.apply(array, 0, array.length, 0);
+    }
+    
+    @Benchmark
+    public int heapBuffer() {
+        return key.apply(heap, 0);
+    }
+    
+    @Benchmark
+    public int directBuffer() {
+        return key.apply(direct, 0);
+    }
+    
+    @Benchmark
+    public int letterCipherWithCharset() throws CharacterCodingException {
+        CharBuffer chars = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(source));
+        letterKey.apply(chars.array(), chars.arrayOffset(), chars.remaining(), 0);
+        return StandardCharsets.UTF_8.newEncoder().encode(chars).remaining();
+    }
+}
@@ -0,0 +1,61 @@
+package com.cipherforge.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.core.CipherResult;
+import com.cipherforge.registry.CipherRegistry;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class CipherBenchmark {
+    
+    @Param({ "1", "2" })
+    public String cipher;
+    
+    @Param({ "16", "1024", "65536", "1048576", "67108864" })
+    public int payloadSize;
+    
+    @Param({ "1", "5", "20", "64" })
+    public int keyLength;
+    
+    @Param({ "ASCII", "UNICODE" })
+    public Payloads.Charset charset;
+    
+    private CipherAlgorithm algorithm;
+    private String plaintext;
+    private String key;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        algorithm = new CipherRegistry().getCipher(cipher);
+        if (algorithm == null) {
+            throw new IllegalStateException("No cipher registered under id " + cipher);
+        }
+        
+        plaintext = Payloads.text(payloadSize, charset);
+        key = Payloads.key(algorithm, keyLength);
+    }
+    
+    @Benchmark
+    public CipherResult encrypt() {
+        return algorithm.encrypt(plaintext, key);
+    }
+}
@@ -0,0 +1,140 @@
+package com.cipherforge.benchmark;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.reactive.CipherProcessor;
+import com.cipherforge.registry.CipherRegistry;
+
+/**
+ * Records per microsecond through CipherProcessor, from a publisher that
+ * emits as fast as it is asked to. batchSize 1 gives every record its own
+ * task; compare with the default to see what batching saves on small records.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CipherProcessorBenchmark {
+    private static final int RECORDS = 10000;
+    
+    @Param({ "1", "2" })
+    public String cipher;
+    
+    @Param({ "16", "1024" })
+    public int recordSize;
+    
+    @Param({ "1", "64" })
+    public int batchSize;
+    
+    @Param({ "ORDERED", "UNORDERED" })
+    public CipherProcessor.Mode mode;
+    
+    private CompiledKey key;
+    private String record;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        CipherAlgorithm algorithm = new CipherRegistry().getCipher(cipher);
+        key = algorithm.compileKey(Payloads.key(algorithm, 5));
+        record = Payloads.text(recordSize, Payloads.Charset.ASCII);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long process() throws InterruptedException {
+        CipherProcessor processor = new CipherProcessor(key, mode, ForkJoinPool.commonPool(),
+                Runtime.getRuntime().availableProcessors(), batchSize, CipherProcessor.DEFAULT_BUFFER_SIZE);
+        CountingSubscriber subscriber = new CountingSubscriber();
+        processor.subscribe(subscriber);
+        processor.onSubscribe(new RepeatingSubscription(processor, record, RECORDS));
+        subscriber.done.await();
+        return subscriber.chars;
+    }
+    
+    /**
+     * Emits count copies of record synchronously from request, guarding
+     * against reentrant calls as the reactive-streams rules require.
+     */
+    private static final class RepeatingSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super String> subscriber;
+        private final String record;
+        private int remaining;
+        private long requested;
+        private boolean emitting;
+        
+        RepeatingSubscription(Flow.Subscriber<? super String> subscriber, String record, int count) {
+            this.subscriber = subscriber;
+            this.record = record;
+            this.remaining = count;
+        }
+        
+        @Override
+        public synchronized void request(long n) {
+            requested += n;
+            if (emitting) {
+                return;
+            }
+            emitting = true;
+            while (requested > 0 && remaining > 0) {
+                requested--;
+                remaining--;
+                subscriber.onNext(record);
+            }
+            emitting = false;
+            if (remaining == 0) {
+                remaining = -1;
+                subscriber.onComplete();
+            }
+        }
+        
+        @Override
+        public void cancel() {
+        }
+    }
+    
+    private static final class CountingSubscriber implements Flow.Subscriber<String> {
+        final CountDownLatch done = new CountDownLatch(1);
+        long chars;
+        
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+        
+        @Override
+        public void onNext(String item) {
+            chars += item.length();
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            done.countDown();
+        }
+        
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.cipherforge.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cipherforge.algorithms.VigenereCipher;
+import com.cipherforge.analysis.DictionaryAttack;
+import com.cipherforge.analysis.QuadgramModel;
+
+/**
+ * A 100,000-word wordlist, with the real keyword near the end, against a
+ * Vigenere ciphertext. Longer scored prefixes rank better but cost more for
+ * the candidates that survive pruning.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DictionaryAttackBenchmark {
+    private static final int WORDS = 100_000;
+    private static final String KEY = "LANTERN";
+    private static final String PLAIN = "It was a bright cold day in April, and the clocks were striking thirteen. "
+            + "Winston Smith, his chin nuzzled into his breast in an effort to escape the vile wind, slipped "
+            + "quickly through the glass doors of Victory Mansions.";
+            
+    @Param({ "50", "100", "200" })
+    public int prefixLetters;
+    
+    private String ciphertext;
+    private String wordlist;
+    private DictionaryAttack attack;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        ciphertext = new VigenereCipher().encrypt(PLAIN, KEY).getCiphertext();
+        
+        SplittableRandom random = new SplittableRandom(WORDS);
+        StringBuilder words = new StringBuilder(WORDS * 9);
+        for (int i = 0; i < WORDS; i++) {
+            if (i == WORDS - 100) {
+                words.append(KEY.toLowerCase()).append('\n');
+            }
+            int length = 3 + random.nextInt(10);
+            for (int j = 0; j < length; j++) {
+                words.append((char) ('a' + random.nextInt(26)));
+            }
+            words.append('\n');
+        }
+        wordlist = words.toString();
+        
+        attack = new DictionaryAttack(QuadgramModel.english(), Runtime.getRuntime().availableProcessors(),
+                prefixLetters, DictionaryAttack.DEFAULT_TOP_K);
+    }
+    
+    @Benchmark
+    public DictionaryAttack.Result attack() throws IOException {
+        DictionaryAttack.Result result = attack.attack(ciphertext, new StringReader(wordlist));
+        if (!KEY.equals(result.getKey())) {
+            throw new IllegalStateException("Expected " + KEY + " but ranked " + result.getCandidates());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,71 @@
+package com.cipherforge.benchmark;
+
+import java.nio.CharBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.registry.CipherRegistry;
+
+/**
+ * Steady-state cost of the allocation-free encryptInto overloads. Run with
+ * -prof gc to see gc.alloc.rate.norm; EncryptIntoAllocationTest fails the
+ * build if the String-key overloads allocate at all.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncryptIntoBenchmark {
+    
+    @Param({ "1", "2" })
+    public String cipher;
+    
+    @Param({ "20", "200", "65536" })
+    public int payloadSize;
+    
+    private CipherAlgorithm algorithm;
+    private String plaintext;
+    private String key;
+    private char[] output;
+    private CharBuffer outputBuffer;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        algorithm = new CipherRegistry().getCipher(cipher);
+        plaintext = Payloads.text(payloadSize, Payloads.Charset.ASCII);
+        key = Payloads.key(algorithm, 5);
+        output = new char[payloadSize];
+        outputBuffer = CharBuffer.allocate(payloadSize);
+    }
+    
+    @Benchmark
+    public int encryptString() {
+        return algorithm.encrypt(plaintext, key).getCiphertext().length();
+    }
+    
+    @Benchmark
+    public int encryptIntoArray() {
+        return algorithm.encryptInto(plaintext, output, 0, key);
+    }
+    
+    @Benchmark
+    public int encryptIntoCharBuffer() {
+        outputBuffer.clear();
+        return algorithm.encryptInto(plaintext, outputBuffer, key);
+    }
+}
@@ -0,0 +1,99 @@
+package com.cipherforge.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.core.KeyCache;
+import com.cipherforge.metrics.AlgorithmMetrics;
+import com.cipherforge.metrics.CipherMetrics;
+import com.cipherforge.registry.CipherRegistry;
+
+/**
+ * Cost of CipherMetrics on the encryption hot path. The same operations run in
+ * a fork with metrics on (Enabled) and one with -Dcipherforge.metrics=false
+ * (Disabled), where recording compiles away; compare the two scores per
+ * method and payload size. record measures the instrumentation alone, which
+ * is the fixed per-operation cost to set against encrypt's score when the
+ * end-to-end difference is within run-to-run noise.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public abstract class MetricsOverheadBenchmark {
+    
+    @Param({ "1", "2" })
+    public String cipher;
+    
+    @Param({ "16", "1024", "65536" })
+    public int payloadSize;
+    
+    private CipherAlgorithm algorithm;
+    private String plaintext;
+    private String key;
+    private CompiledKey compiled;
+    private char[] output;
+    private AlgorithmMetrics metrics;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        algorithm = new CipherRegistry().getCipher(cipher);
+        plaintext = Payloads.text(payloadSize, Payloads.Charset.ASCII);
+        key = Payloads.key(algorithm, 5);
+        compiled = KeyCache.getDefault().get(algorithm, key);
+        output = new char[payloadSize];
+        metrics = CipherMetrics.getDefault().forAlgorithm(algorithm.getName());
+        
+        if (CipherMetrics.isEnabled() != expectEnabled()) {
+            throw new IllegalStateException("Fork started with the wrong cipherforge.metrics setting.");
+        }
+    }
+    
+    abstract boolean expectEnabled();
+    
+    @Benchmark
+    public int encrypt() {
+        return algorithm.encrypt(plaintext, key).getCiphertext().length();
+    }
+    
+    @Benchmark
+    public int encryptIntoArray() {
+        return algorithm.encryptInto(plaintext, output, 0, compiled);
+    }
+    
+    @Benchmark
+    public void record() {
+        metrics.recordChars(payloadSize, metrics.start());
+    }
+    
+    @Fork(value = 1, jvmArgsAppend = "-D" + CipherMetrics.ENABLED_PROPERTY + "=true")
+    public static class Enabled extends MetricsOverheadBenchmark {
+        @Override
+        boolean expectEnabled() {
+            return true;
+        }
+    }
+    
+    @Fork(value = 1, jvmArgsAppend = "-D" + CipherMetrics.ENABLED_PROPERTY + "=false")
+    public static class Disabled extends MetricsOverheadBenchmark {
+        @Override
+        boolean expectEnabled() {
+            return false;
+        }
+    }
+}
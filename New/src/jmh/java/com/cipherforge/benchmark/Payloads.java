@@ -0,0 +1,88 @@
+package com.cipherforge.benchmark;
+
+import java.util.SplittableRandom;
+
+import com.cipherforge.core.ByteCipher;
+import com.cipherforge.core.CipherAlgorithm;
+
+public final class Payloads {
+    private static final long SEED = 0x5EEDL;
+    private static final String UNICODE_EXTRAS = "\u00e9\u00c9\u00df\u00f1\u03b1\u03a9\u0436\u4e2d\u6587\u2603";
+    
+    public enum Charset {
+        ASCII,
+        UNICODE
+    }
+    
+    private Payloads() {
+    }
+    
+    /**
+     * Builds a deterministic English-like payload of the given length. UNICODE
+     * payloads replace roughly one character in ten with a non-ASCII letter or
+     * symbol so that the slow fallback paths are exercised.
+     */
+    public static String text(int length, Charset charset) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        char[] text = new char[length];
+        
+        for (int i = 0; i < length; i++) {
+            int roll = random.nextInt(100);
+            
+            if (charset == Charset.UNICODE && roll < 10) {
+                text[i] = UNICODE_EXTRAS.charAt(random.nextInt(UNICODE_EXTRAS.length()));
+            } else if (roll < 25) {
+                text[i] = ' ';
+            } else if (roll < 30) {
+                text[i] = (char) ('A' + random.nextInt(26));
+            } else if (roll < 33) {
+                text[i] = ".,!?\n".charAt(random.nextInt(5));
+            } else {
+                text[i] = (char) ('a' + random.nextInt(26));
+            }
+        }
+        
+        return new String(text);
+    }
+    
+    /**
+     * Returns a valid key for the cipher. Keyword ciphers get a keyword of the
+     * requested length; ciphers that reject keywords get a numeric shift, or
+     * a shuffled alphabet if they reject that too.
+     */
+    public static String key(CipherAlgorithm cipher, int length) {
+        SplittableRandom random = new SplittableRandom(SEED + length);
+        StringBuilder keyword = new StringBuilder(length);
+        
+        for (int i = 0; i < length; i++) {
+            keyword.append((char) ('A' + random.nextInt(26)));
+        }
+        
+        if (cipher instanceof ByteCipher
+                ? ((ByteCipher) cipher).compileByteKey(keyword.toString()) != null
+                : cipher.keyShifts(keyword.toString()) != null) {
+            return keyword.toString();
+        }
+        if (cipher instanceof ByteCipher || cipher.compileKey(String.valueOf(length % 26)) != null) {
+            return String.valueOf(length % 26);
+        }
+        return alphabet(random);
+    }
+    
+    /**
+     * A random permutation of A-Z, for ciphers keyed by a cipher alphabet.
+     */
+    private static String alphabet(SplittableRandom random) {
+        char[] letters = new char[26];
+        for (int i = 0; i < 26; i++) {
+            letters[i] = (char) ('A' + i);
+        }
+        for (int i = 25; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            char t = letters[i];
+            letters[i] = letters[j];
+            letters[j] = t;
+        }
+        return new String(letters);
+    }
+}
@@ -0,0 +1,78 @@
+package com.cipherforge.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.core.CipherPipeline;
+import com.cipherforge.registry.CipherRegistry;
+
+/**
+ * A Caesar stage followed by Vigenere stages, run as separate encrypt calls
+ * (one String per stage) and as a fused CipherPipeline (one pass).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+    
+    @Param({ "2", "4" })
+    public int stages;
+    
+    @Param({ "1024", "1048576" })
+    public int payloadSize;
+    
+    private CipherAlgorithm[] algorithms;
+    private String[] keys;
+    private CipherPipeline pipeline;
+    private String plaintext;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        CipherRegistry registry = new CipherRegistry();
+        algorithms = new CipherAlgorithm[stages];
+        keys = new String[stages];
+        
+        algorithms[0] = registry.getCipher("1");
+        keys[0] = "7";
+        for (int i = 1; i < stages; i++) {
+            algorithms[i] = registry.getCipher("2");
+            keys[i] = Payloads.key(algorithms[i], 3 + 2 * i);
+        }
+        
+        pipeline = CipherPipeline.of(algorithms[0], keys[0]);
+        for (int i = 1; i < stages; i++) {
+            pipeline = pipeline.then(algorithms[i], keys[i]);
+        }
+        plaintext = Payloads.text(payloadSize, Payloads.Charset.ASCII);
+    }
+    
+    @Benchmark
+    public String chained() {
+        String text = plaintext;
+        for (int i = 0; i < stages; i++) {
+            text = algorithms[i].encrypt(text, keys[i]).getCiphertext();
+        }
+        return text;
+    }
+    
+    @Benchmark
+    public String fused() {
+        return pipeline.encrypt(plaintext).getCiphertext();
+    }
+}
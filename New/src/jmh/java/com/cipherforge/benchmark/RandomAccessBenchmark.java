@@ -0,0 +1,84 @@
+package com.cipherforge.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.io.RandomAccessEncryptor;
+import com.cipherforge.registry.CipherRegistry;
+
+/**
+ * A 4 KB range at a random offset of a 16 MB ASCII file, encrypted through
+ * the letter index against replaying the file from the start up to the range.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomAccessBenchmark {
+    private static final int FILE_SIZE = 16 * 1024 * 1024;
+    private static final int RANGE = 4096;
+    
+    @Param({ "1", "2" })
+    public String cipher;
+    
+    private Path file;
+    private byte[] contents;
+    private CompiledKey key;
+    private RandomAccessEncryptor encryptor;
+    private SplittableRandom random;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        contents = Payloads.text(FILE_SIZE, Payloads.Charset.ASCII).getBytes(StandardCharsets.US_ASCII);
+        file = Files.createTempFile("random-access", ".txt");
+        Files.write(file, contents);
+        CipherAlgorithm algorithm = new CipherRegistry().getCipher(cipher);
+        key = algorithm.compileKey(Payloads.key(algorithm, 7));
+        encryptor = new RandomAccessEncryptor(file);
+        random = new SplittableRandom(RANGE);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        encryptor.close();
+        Files.deleteIfExists(file);
+    }
+    
+    @Benchmark
+    public byte[] indexedRange() throws IOException {
+        return encryptor.encrypt(random.nextLong(FILE_SIZE - RANGE), RANGE, key);
+    }
+    
+    @Benchmark
+    public byte[] replayFromStart() {
+        int offset = (int) random.nextLong(FILE_SIZE - RANGE);
+        byte[] prefix = new byte[offset + RANGE];
+        System.arraycopy(contents, 0, prefix, 0, prefix.length);
+        key.apply(prefix, 0, prefix.length, 0);
+        byte[] range = new byte[RANGE];
+        System.arraycopy(prefix, offset, range, 0, RANGE);
+        return range;
+    }
+}
@@ -0,0 +1,109 @@
+package com.cipherforge.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.core.CipherResult;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.registry.CipherRegistry;
+
+/**
+ * Every thread encrypts through the same registry instance, key cache and
+ * compiled keys, and checks each result against the one computed on a single
+ * thread in setUp; a mismatch fails the run. Scores should grow in proportion
+ * to the thread count. Run it with --scaling (see BenchmarkRunner) to sweep 1
+ * to N threads and print the speedup of each step.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScalingBenchmark {
+    private static final int MESSAGES = 256;
+    private static final int DISTINCT_KEYS = 8;
+    
+    @Param({ "1", "2" })
+    public String cipher;
+    
+    @Param({ "64", "16384" })
+    public int payloadSize;
+    
+    private CipherAlgorithm algorithm;
+    private String[] plaintexts;
+    private String[] keys;
+    private CompiledKey[] compiledKeys;
+    private String[] expected;
+    private char[][] expectedChars;
+    
+    /**
+     * Each thread's position in the messages and its own work buffer.
+     */
+    @State(Scope.Thread)
+    public static class Worker {
+        int next;
+        char[] buffer;
+        
+        @Setup(Level.Trial)
+        public void setUp(ScalingBenchmark shared) {
+            next = System.identityHashCode(this);
+            buffer = new char[shared.payloadSize];
+        }
+    }
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        algorithm = new CipherRegistry().getCipher(cipher);
+        String text = Payloads.text(MESSAGES * payloadSize, Payloads.Charset.ASCII);
+        plaintexts = new String[MESSAGES];
+        keys = new String[MESSAGES];
+        compiledKeys = new CompiledKey[MESSAGES];
+        expected = new String[MESSAGES];
+        expectedChars = new char[MESSAGES][];
+        
+        for (int i = 0; i < MESSAGES; i++) {
+            plaintexts[i] = text.substring(i * payloadSize, (i + 1) * payloadSize);
+            keys[i] = Payloads.key(algorithm, 1 + i % DISTINCT_KEYS);
+            compiledKeys[i] = algorithm.compileKey(keys[i]);
+            expected[i] = algorithm.encrypt(plaintexts[i], keys[i]).getCiphertext();
+            expectedChars[i] = expected[i].toCharArray();
+        }
+    }
+    
+    @Benchmark
+    public CipherResult encrypt(Worker worker) {
+        int i = worker.next++ & (MESSAGES - 1);
+        CipherResult result = algorithm.encrypt(plaintexts[i], keys[i]);
+        if (!result.getCiphertext().equals(expected[i])) {
+            throw new IllegalStateException("Message " + i + " differs from the sequential result.");
+        }
+        return result;
+    }
+    
+    @Benchmark
+    public char[] applyCompiledKey(Worker worker) {
+        int i = worker.next++ & (MESSAGES - 1);
+        char[] buffer = worker.buffer;
+        plaintexts[i].getChars(0, payloadSize, buffer, 0);
+        compiledKeys[i].apply(buffer, 0, payloadSize, 0);
+        if (!Arrays.equals(buffer, expectedChars[i])) {
+            throw new IllegalStateException("Message " + i + " differs from the sequential result.");
+        }
+        return buffer;
+    }
+}
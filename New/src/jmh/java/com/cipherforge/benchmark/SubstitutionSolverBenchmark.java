@@ -0,0 +1,64 @@
+package com.cipherforge.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cipherforge.algorithms.SubstitutionCipher;
+import com.cipherforge.analysis.QuadgramModel;
+import com.cipherforge.analysis.SubstitutionSolver;
+
+/**
+ * Twenty hill-climbing restarts on all cores against substitution ciphertexts
+ * of several lengths. Swaps are scored over the distinct ciphertext quadgrams,
+ * not the text; the texts repeat one passage, so the longer ones add counts
+ * but no new quadgrams and isolate that effect.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubstitutionSolverBenchmark {
+    private static final int RESTARTS = 20;
+    private static final String KEY = "ZEBRASCDFGHIJKLMNOPQTUVWXY";
+    private static final String PASSAGE = "It is a truth universally acknowledged, that a single man in possession "
+            + "of a good fortune, must be in want of a wife. However little known the feelings or views of such a "
+            + "man may be on his first entering a neighbourhood, this truth is so well fixed in the minds of the "
+            + "surrounding families, that he is considered as the rightful property of some one or other of their "
+            + "daughters. ";
+            
+    @Param({ "300", "1000", "10000" })
+    public int length;
+    
+    private String ciphertext;
+    private SubstitutionSolver solver;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder plain = new StringBuilder(length);
+        while (plain.length() < length) {
+            plain.append(PASSAGE, 0, Math.min(PASSAGE.length(), length - plain.length()));
+        }
+        ciphertext = new SubstitutionCipher().encrypt(plain.toString(), KEY).getCiphertext();
+        solver = new SubstitutionSolver(QuadgramModel.english(), Runtime.getRuntime().availableProcessors(), RESTARTS,
+                SubstitutionSolver.DEFAULT_SEED);
+    }
+    
+    @Benchmark
+    public SubstitutionSolver.Result solve() {
+        return solver.solve(ciphertext);
+    }
+}
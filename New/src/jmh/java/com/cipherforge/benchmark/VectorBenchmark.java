@@ -0,0 +1,78 @@
+package com.cipherforge.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.core.SubstitutionTable;
+import com.cipherforge.registry.CipherRegistry;
+
+/**
+ * Scalar table loop against the SIMD kernel on ASCII chars and bytes. The
+ * vector results are only meaningful when setUp reports a loaded kernel;
+ * build with -P vector to include it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorBenchmark {
+    
+    @Param({ "1", "2" })
+    public String cipher;
+    
+    @Param({ "64", "1024", "65536" })
+    public int payloadSize;
+    
+    private SubstitutionTable table;
+    private char[] chars;
+    private byte[] bytes;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (!SubstitutionTable.isVectorized()) {
+            System.err.println("No vector kernel loaded; vector* results measure the scalar path.");
+        }
+        
+        CipherRegistry registry = new CipherRegistry();
+        CompiledKey key = registry.getCipher(cipher).compileKey(Payloads.key(registry.getCipher(cipher), 5));
+        table = key.getTable();
+        chars = Payloads.text(payloadSize, Payloads.Charset.ASCII).toCharArray();
+        bytes = new String(chars).getBytes(StandardCharsets.US_ASCII);
+    }
+    
+    @Benchmark
+    public int scalarChars() {
+        return table.applyScalar(chars, 0, chars.length, 0);
+    }
+    
+    @Benchmark
+    public int vectorChars() {
+        return table.apply(chars, 0, chars.length, 0);
+    }
+    
+    @Benchmark
+    public int scalarBytes() {
+        return table.applyScalar(bytes, 0, bytes.length, 0);
+    }
+    
+    @Benchmark
+    public int vectorBytes() {
+        return table.apply(bytes, 0, bytes.length, 0);
+    }
+}
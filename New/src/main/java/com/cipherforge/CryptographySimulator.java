@@ -1,9 +1,15 @@
 package com.cipherforge;
 
+import com.cipherforge.cli.CommandLineRunner;
 import com.cipherforge.engine.Engine;
 
 public class CryptographySimulator {
     public static void main(String[] args) {
+        if (CommandLineRunner.isCommandLine(args)) {
+            long startNanos = System.nanoTime();
+            System.exit(new CommandLineRunner(System.err, startNanos).run(args));
+        }
+        
         Engine engine = new Engine();
         engine.start();
     }
@@ -0,0 +1,22 @@
+package com.cipherforge.algorithms;
+
+import com.cipherforge.validation.KeyValidator;
+
+/**
+ * Caesar cipher over bytes: every byte is shifted by the same amount mod 256.
+ */
+public class ByteCaesarCipher extends ByteShiftCipher {
+    
+    public ByteCaesarCipher() {
+        super("Byte Caesar Cipher");
+    }
+    
+    @Override
+    protected byte[] keystream(String key) {
+        if (!KeyValidator.isValidCaesarKey(key)) {
+            return null;
+        }
+        
+        return new byte[] { (byte) Math.floorMod(Integer.parseInt(key), 256) };
+    }
+}
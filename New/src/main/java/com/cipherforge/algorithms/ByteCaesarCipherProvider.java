@@ -0,0 +1,38 @@
+package com.cipherforge.algorithms;
+
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.registry.CipherProvider;
+import com.cipherforge.validation.ByteCaesarKeySchema;
+import com.cipherforge.validation.KeySchema;
+
+public class ByteCaesarCipherProvider implements CipherProvider {
+    private static final KeySchema KEY_SCHEMA = new ByteCaesarKeySchema();
+    
+    @Override
+    public String getId() {
+        return "3";
+    }
+    
+    @Override
+    public String getName() {
+        return "Byte Caesar Cipher";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Type: Byte-level shift cipher\n"
+                + "Method: Adds a fixed value to every byte, mod 256\n"
+                + "Output: Base64 (works on any file from the command line)\n"
+                + "Security: Low (easily breakable)";
+    }
+    
+    @Override
+    public KeySchema getKeySchema() {
+        return KEY_SCHEMA;
+    }
+    
+    @Override
+    public CipherAlgorithm createCipher() {
+        return new ByteCaesarCipher();
+    }
+}
@@ -0,0 +1,138 @@
+package com.cipherforge.algorithms;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.cipherforge.core.ByteCipher;
+import com.cipherforge.core.ByteKey;
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.core.CipherResult;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.metrics.AlgorithmMetrics;
+import com.cipherforge.metrics.CipherMetrics;
+
+/**
+ * Base class for the mod-256 byte ciphers. Subclasses only turn a key into its
+ * keystream. Text given to the String methods is encrypted as UTF-8 and the
+ * ciphertext is returned as Base64, since it is arbitrary binary.
+ */
+public abstract class ByteShiftCipher extends CipherAlgorithm implements ByteCipher {
+    
+    protected ByteShiftCipher(String name) {
+        super(name);
+    }
+    
+    /**
+     * Returns the keystream for key, or null if the key is invalid.
+     */
+    protected abstract byte[] keystream(String key);
+    
+    @Override
+    public ByteKey compileByteKey(String key) {
+        byte[] stream = key != null ? keystream(key) : null;
+        return stream != null ? new ByteKey(name, stream) : null;
+    }
+    
+    @Override
+    public CipherResult encrypt(String plaintext, String key) {
+        long start = getMetrics().start();
+        ByteKey compiled = compileByteKey(key);
+        if (compiled == null) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+            return new CipherResult("", name, key, false);
+        }
+        
+        byte[] buffer = plaintext.getBytes(StandardCharsets.UTF_8);
+        compiled.apply(buffer, 0, buffer.length, 0);
+        getMetrics().recordBytes(buffer.length, start);
+        
+        return new CipherResult(Base64.getEncoder().encodeToString(buffer), name, key, true);
+    }
+    
+    /**
+     * Reverses encrypt: takes Base64 ciphertext and returns the UTF-8 text.
+     * Bytes that do not decode (e.g. after a wrong key) become U+FFFD.
+     */
+    @Override
+    public CipherResult decrypt(String ciphertext, String key) {
+        long start = getMetrics().start();
+        ByteKey compiled = compileByteKey(key);
+        if (compiled == null) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+            return new CipherResult("", name, key, false);
+        }
+        
+        byte[] buffer;
+        try {
+            buffer = Base64.getDecoder().decode(ciphertext.trim());
+        } catch (IllegalArgumentException e) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.MALFORMED_INPUT);
+            return new CipherResult("", name, key, false);
+        }
+        
+        compiled.inverse().apply(buffer, 0, buffer.length, 0);
+        getMetrics().recordBytes(buffer.length, start);
+        
+        return new CipherResult(new String(buffer, StandardCharsets.UTF_8), name, key, true);
+    }
+    
+    @Override
+    public long encrypt(ReadableByteChannel input, WritableByteChannel output, ByteKey key, int bufferSize)
+            throws IOException {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        
+        AlgorithmMetrics metrics = getMetrics();
+        long start = metrics.startBulk();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+        long total = 0;
+        int keyIndex = 0;
+        
+        try {
+            while (input.read(buffer) != -1) {
+                buffer.flip();
+                keyIndex = key.apply(buffer, keyIndex);
+                total += buffer.remaining();
+                while (buffer.hasRemaining()) {
+                    output.write(buffer);
+                }
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.reasonFor(e));
+            throw e;
+        }
+        
+        metrics.recordBytes(total, start);
+        return total;
+    }
+    
+    /**
+     * Byte ciphers have no letter shifts.
+     */
+    @Override
+    public int[] keyShifts(String key) {
+        return null;
+    }
+    
+    /**
+     * Byte ciphers have no letter key, so every letter-level entry point
+     * inherited from CipherAlgorithm (KeyCache, encryptInto, the Reader and
+     * Writer streams, batches, ParallelEncryptor) reports an invalid key.
+     * Use compileByteKey and the channel methods instead.
+     */
+    @Override
+    public CompiledKey compileKey(String key) {
+        return null;
+    }
+    
+    @Override
+    protected int encryptInPlace(char[] buffer, int offset, int length, String key, int keyIndex) {
+        return INVALID_KEY;
+    }
+}
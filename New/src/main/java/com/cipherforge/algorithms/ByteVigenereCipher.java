@@ -0,0 +1,23 @@
+package com.cipherforge.algorithms;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Vigenere cipher over bytes: the keystream is the UTF-8 encoding of the key,
+ * repeated, and each byte is shifted by the next keystream byte mod 256.
+ */
+public class ByteVigenereCipher extends ByteShiftCipher {
+    
+    public ByteVigenereCipher() {
+        super("Byte Vigenere Cipher");
+    }
+    
+    @Override
+    protected byte[] keystream(String key) {
+        if (key.trim().isEmpty()) {
+            return null;
+        }
+        
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+}
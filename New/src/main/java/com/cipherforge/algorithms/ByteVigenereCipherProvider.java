@@ -0,0 +1,38 @@
+package com.cipherforge.algorithms;
+
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.registry.CipherProvider;
+import com.cipherforge.validation.ByteVigenereKeySchema;
+import com.cipherforge.validation.KeySchema;
+
+public class ByteVigenereCipherProvider implements CipherProvider {
+    private static final KeySchema KEY_SCHEMA = new ByteVigenereKeySchema();
+    
+    @Override
+    public String getId() {
+        return "4";
+    }
+    
+    @Override
+    public String getName() {
+        return "Byte Vigenere Cipher";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Type: Byte-level polyalphabetic cipher\n"
+                + "Method: Adds the key's UTF-8 bytes in turn, mod 256\n"
+                + "Output: Base64 (works on any file from the command line)\n"
+                + "Security: Low (repeating keystream)";
+    }
+    
+    @Override
+    public KeySchema getKeySchema() {
+        return KEY_SCHEMA;
+    }
+    
+    @Override
+    public CipherAlgorithm createCipher() {
+        return new ByteVigenereCipher();
+    }
+}
@@ -2,6 +2,11 @@ package com.cipherforge.algorithms;
 
 import com.cipherforge.core.CipherAlgorithm;
 import com.cipherforge.core.CipherResult;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.core.KeyCache;
+import com.cipherforge.core.SubstitutionTable;
+import com.cipherforge.metrics.CipherMetrics;
+import com.cipherforge.validation.KeyValidator;
 
 public class CaesarCipher extends CipherAlgorithm {
     
@@ -11,33 +16,51 @@ public class CaesarCipher extends CipherAlgorithm {
     
     @Override
     public CipherResult encrypt(String plaintext, String key) {
-        try {
-            int shift = Integer.parseInt(key);
-            StringBuilder result = new StringBuilder();
-            
-            for (int i = 0; i < plaintext.length(); i++) {
-                char ch = plaintext.charAt(i);
-                
-                if (Character.isUpperCase(ch)) {
-                    int shifted = ((ch - 'A' + shift) % 26);
-                    if (shifted < 0) {
-                        shifted += 26;
-                    }
-                    result.append((char) ('A' + shifted));
-                } else if (Character.isLowerCase(ch)) {
-                    int shifted = ((ch - 'a' + shift) % 26);
-                    if (shifted < 0) {
-                        shifted += 26;
-                    }
-                    result.append((char) ('a' + shifted));
-                } else {
-                    result.append(ch);
-                }
-            }
-            
-            return new CipherResult(result.toString(), name, key, true);
-        } catch (NumberFormatException e) {
+        long start = getMetrics().start();
+        CompiledKey compiled = KeyCache.getDefault().get(this, key);
+        if (compiled == null) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
             return new CipherResult("", name, key, false);
         }
+        
+        char[] buffer = plaintext.toCharArray();
+        compiled.apply(buffer, 0, buffer.length, 0);
+        getMetrics().recordChars(buffer.length, start);
+        
+        return new CipherResult(new String(buffer), name, key, true);
+    }
+    
+    @Override
+    public CipherResult decrypt(String ciphertext, String key) {
+        long start = getMetrics().start();
+        CompiledKey compiled = KeyCache.getDefault().get(this, key);
+        if (compiled == null) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+            return new CipherResult("", name, key, false);
+        }
+        
+        char[] buffer = ciphertext.toCharArray();
+        compiled.inverse().apply(buffer, 0, buffer.length, 0);
+        getMetrics().recordChars(buffer.length, start);
+        
+        return new CipherResult(new String(buffer), name, key, true);
+    }
+    
+    @Override
+    public int[] keyShifts(String key) {
+        if (!KeyValidator.isValidCaesarKey(key)) {
+            return null;
+        }
+        
+        return new int[] { Math.floorMod(Integer.parseInt(key), 26) };
+    }
+    
+    @Override
+    protected int encryptInPlace(char[] buffer, int offset, int length, String key, int keyIndex) {
+        if (!KeyValidator.isValidCaesarKey(key)) {
+            return INVALID_KEY;
+        }
+        
+        return SubstitutionTable.forShift(Integer.parseInt(key)).apply(buffer, offset, length, keyIndex);
     }
 }
@@ -0,0 +1,38 @@
+package com.cipherforge.algorithms;
+
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.registry.CipherProvider;
+import com.cipherforge.validation.CaesarKeySchema;
+import com.cipherforge.validation.KeySchema;
+
+public class CaesarCipherProvider implements CipherProvider {
+    private static final KeySchema KEY_SCHEMA = new CaesarKeySchema();
+    
+    @Override
+    public String getId() {
+        return "1";
+    }
+    
+    @Override
+    public String getName() {
+        return "Caesar Cipher";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Type: Substitution cipher\n"
+                + "Method: Shifts each letter by a fixed number\n"
+                + "Security: Low (easily breakable)\n"
+                + "Use case: Educational purposes";
+    }
+    
+    @Override
+    public KeySchema getKeySchema() {
+        return KEY_SCHEMA;
+    }
+    
+    @Override
+    public CipherAlgorithm createCipher() {
+        return new CaesarCipher();
+    }
+}
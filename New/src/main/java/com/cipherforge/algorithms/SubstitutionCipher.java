@@ -0,0 +1,84 @@
+package com.cipherforge.algorithms;
+
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.core.CipherResult;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.core.KeyCache;
+import com.cipherforge.metrics.CipherMetrics;
+import com.cipherforge.validation.KeyValidator;
+
+/**
+ * General monoalphabetic substitution. The key lists the ciphertext letter for
+ * each of A-Z in turn, e.g. QWERTYUIOPASDFGHJKLZXCVBNM maps A to Q and B to W.
+ * Caesar is the special case of a rotated alphabet.
+ */
+public class SubstitutionCipher extends CipherAlgorithm {
+    
+    public SubstitutionCipher() {
+        super("Substitution Cipher");
+    }
+    
+    @Override
+    public CipherResult encrypt(String plaintext, String key) {
+        long start = getMetrics().start();
+        CompiledKey compiled = KeyCache.getDefault().get(this, key);
+        if (compiled == null) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+            return new CipherResult("", name, key, false);
+        }
+        
+        char[] buffer = plaintext.toCharArray();
+        compiled.apply(buffer, 0, buffer.length, 0);
+        getMetrics().recordChars(buffer.length, start);
+        
+        return new CipherResult(new String(buffer), name, key, true);
+    }
+    
+    @Override
+    public CipherResult decrypt(String ciphertext, String key) {
+        long start = getMetrics().start();
+        CompiledKey compiled = KeyCache.getDefault().get(this, key);
+        if (compiled == null) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+            return new CipherResult("", name, key, false);
+        }
+        
+        char[] buffer = ciphertext.toCharArray();
+        compiled.inverse().apply(buffer, 0, buffer.length, 0);
+        getMetrics().recordChars(buffer.length, start);
+        
+        return new CipherResult(new String(buffer), name, key, true);
+    }
+    
+    /**
+     * A permutation is not a shift sequence, so this always returns null;
+     * compileKey builds the key from the alphabet instead.
+     */
+    @Override
+    public int[] keyShifts(String key) {
+        return null;
+    }
+    
+    @Override
+    public CompiledKey compileKey(String key) {
+        if (!KeyValidator.isValidSubstitutionKey(key)) {
+            return null;
+        }
+        
+        int[] alphabet = new int[26];
+        for (int i = 0; i < 26; i++) {
+            alphabet[i] = (key.charAt(i) | 0x20) - 'a';
+        }
+        return CompiledKey.forAlphabet(name, alphabet);
+    }
+    
+    @Override
+    protected int encryptInPlace(char[] buffer, int offset, int length, String key, int keyIndex) {
+        CompiledKey compiled = KeyCache.getDefault().get(this, key);
+        if (compiled == null) {
+            return INVALID_KEY;
+        }
+        
+        return compiled.apply(buffer, offset, length, keyIndex);
+    }
+}
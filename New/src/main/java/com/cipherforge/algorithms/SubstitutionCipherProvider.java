@@ -0,0 +1,37 @@
+package com.cipherforge.algorithms;
+
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.registry.CipherProvider;
+import com.cipherforge.validation.KeySchema;
+import com.cipherforge.validation.SubstitutionKeySchema;
+
+public class SubstitutionCipherProvider implements CipherProvider {
+    private static final KeySchema KEY_SCHEMA = new SubstitutionKeySchema();
+    
+    @Override
+    public String getId() {
+        return "5";
+    }
+    
+    @Override
+    public String getName() {
+        return "Substitution Cipher";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Type: Monoalphabetic substitution cipher\n"
+                + "Method: Replaces each letter by its counterpart in a cipher alphabet\n"
+                + "Security: Low (breakable by frequency analysis and hill climbing)";
+    }
+    
+    @Override
+    public KeySchema getKeySchema() {
+        return KEY_SCHEMA;
+    }
+    
+    @Override
+    public CipherAlgorithm createCipher() {
+        return new SubstitutionCipher();
+    }
+}
@@ -2,6 +2,9 @@ package com.cipherforge.algorithms;
 
 import com.cipherforge.core.CipherAlgorithm;
 import com.cipherforge.core.CipherResult;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.core.KeyCache;
+import com.cipherforge.metrics.CipherMetrics;
 import com.cipherforge.validation.KeyValidator;
 
 public class VigenereCipher extends CipherAlgorithm {
@@ -12,32 +15,59 @@ public class VigenereCipher extends CipherAlgorithm {
     
     @Override
     public CipherResult encrypt(String plaintext, String key) {
-        if (!KeyValidator.isValidVigenereKey(key)) {
+        long start = getMetrics().start();
+        CompiledKey compiled = KeyCache.getDefault().get(this, key);
+        if (compiled == null) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
             return new CipherResult("", name, key, false);
         }
         
-        StringBuilder result = new StringBuilder();
+        char[] buffer = plaintext.toCharArray();
+        compiled.apply(buffer, 0, buffer.length, 0);
+        getMetrics().recordChars(buffer.length, start);
+        
+        return new CipherResult(new String(buffer), name, key, true);
+    }
+    
+    @Override
+    public CipherResult decrypt(String ciphertext, String key) {
+        long start = getMetrics().start();
+        CompiledKey compiled = KeyCache.getDefault().get(this, key);
+        if (compiled == null) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+            return new CipherResult("", name, key, false);
+        }
+        
+        char[] buffer = ciphertext.toCharArray();
+        compiled.inverse().apply(buffer, 0, buffer.length, 0);
+        getMetrics().recordChars(buffer.length, start);
+        
+        return new CipherResult(new String(buffer), name, key, true);
+    }
+    
+    @Override
+    public int[] keyShifts(String key) {
+        if (!KeyValidator.isValidVigenereKey(key)) {
+            return null;
+        }
+        
         String upperKey = key.toUpperCase();
-        int keyIndex = 0;
-        
-        for (int i = 0; i < plaintext.length(); i++) {
-            char ch = plaintext.charAt(i);
-            
-            if (Character.isUpperCase(ch)) {
-                int shift = upperKey.charAt(keyIndex % upperKey.length()) - 'A';
-                int shifted = ((ch - 'A' + shift) % 26);
-                result.append((char) ('A' + shifted));
-                keyIndex++;
-            } else if (Character.isLowerCase(ch)) {
-                int shift = upperKey.charAt(keyIndex % upperKey.length()) - 'A';
-                int shifted = ((ch - 'a' + shift) % 26);
-                result.append((char) ('a' + shifted));
-                keyIndex++;
-            } else {
-                result.append(ch);
-            }
+        int[] shifts = new int[upperKey.length()];
+        
+        for (int i = 0; i < shifts.length; i++) {
+            shifts[i] = Math.floorMod(upperKey.charAt(i) - 'A', 26);
+        }
+        
+        return shifts;
+    }
+    
+    @Override
+    protected int encryptInPlace(char[] buffer, int offset, int length, String key, int keyIndex) {
+        CompiledKey compiled = KeyCache.getDefault().get(this, key);
+        if (compiled == null) {
+            return INVALID_KEY;
         }
         
-        return new CipherResult(result.toString(), name, key, true);
+        return compiled.apply(buffer, offset, length, keyIndex);
     }
 }
@@ -0,0 +1,38 @@
+package com.cipherforge.algorithms;
+
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.registry.CipherProvider;
+import com.cipherforge.validation.KeySchema;
+import com.cipherforge.validation.VigenereKeySchema;
+
+public class VigenereCipherProvider implements CipherProvider {
+    private static final KeySchema KEY_SCHEMA = new VigenereKeySchema();
+    
+    @Override
+    public String getId() {
+        return "2";
+    }
+    
+    @Override
+    public String getName() {
+        return "Vigenere Cipher";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Type: Polyalphabetic substitution cipher\n"
+                + "Method: Uses keyword for variable shifts\n"
+                + "Security: Medium (stronger than Caesar)\n"
+                + "Use case: Historical cryptography";
+    }
+    
+    @Override
+    public KeySchema getKeySchema() {
+        return KEY_SCHEMA;
+    }
+    
+    @Override
+    public CipherAlgorithm createCipher() {
+        return new VigenereCipher();
+    }
+}
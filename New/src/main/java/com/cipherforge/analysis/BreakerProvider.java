@@ -0,0 +1,18 @@
+package com.cipherforge.analysis;
+
+/**
+ * Service provider interface for key breakers. Implementations are discovered
+ * with ServiceLoader from
+ * META-INF/services/com.cipherforge.analysis.BreakerProvider, and are matched
+ * to a cipher by its name, so a cipher needs no dependency on analysis to be
+ * crackable.
+ */
+public interface BreakerProvider {
+    /**
+     * The name of the cipher this breaker cracks, as returned by
+     * CipherAlgorithm.getName, e.g. "Caesar Cipher".
+     */
+    String getAlgorithm();
+    
+    KeyBreaker createBreaker();
+}
@@ -0,0 +1,43 @@
+package com.cipherforge.analysis;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Key breakers discovered through the BreakerProvider SPI, by cipher name.
+ * The map is built once and never modified, so lookups need no locking.
+ */
+public class BreakerRegistry {
+    private final Map<String, BreakerProvider> providers;
+    
+    public BreakerRegistry() {
+        this(ServiceLoader.load(BreakerProvider.class));
+    }
+    
+    public BreakerRegistry(ClassLoader loader) {
+        this(ServiceLoader.load(BreakerProvider.class, loader));
+    }
+    
+    public BreakerRegistry(Iterable<BreakerProvider> providers) {
+        HashMap<String, BreakerProvider> loaded = new HashMap<String, BreakerProvider>();
+        
+        for (BreakerProvider provider : providers) {
+            if (loaded.put(provider.getAlgorithm(), provider) != null) {
+                throw new IllegalStateException("Duplicate breaker for " + provider.getAlgorithm());
+            }
+        }
+        
+        this.providers = Collections.unmodifiableMap(loaded);
+    }
+    
+    /**
+     * Returns a new breaker for the cipher called algorithm (as returned by
+     * CipherAlgorithm.getName), or null if it cannot be cracked.
+     */
+    public KeyBreaker createBreaker(String algorithm) {
+        BreakerProvider provider = providers.get(algorithm);
+        return provider != null ? provider.createBreaker() : null;
+    }
+}
@@ -0,0 +1,104 @@
+package com.cipherforge.analysis;
+
+import java.io.PrintStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import com.cipherforge.algorithms.CaesarCipher;
+import com.cipherforge.core.CipherResult;
+
+/**
+ * Recovers a Caesar shift by chi-squared scoring against English letter
+ * frequencies. The ciphertext is read once to build a histogram; each of the
+ * 26 candidate shifts is then scored by rotating that histogram, in parallel.
+ */
+public class CaesarBreaker implements KeyBreaker {
+    private final ForkJoinPool pool;
+    
+    public CaesarBreaker() {
+        this(ForkJoinPool.commonPool());
+    }
+    
+    public CaesarBreaker(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    public Result crack(CharSequence ciphertext) {
+        return crack(LetterFrequencies.histogram(ciphertext, pool));
+    }
+    
+    @Override
+    public String recoverKey(CharSequence ciphertext, PrintStream report) {
+        return crack(ciphertext).getKey();
+    }
+    
+    public Result crack(int[] histogram) {
+        double[] scores;
+        try {
+            scores = pool.submit(() -> IntStream.range(0, 26)
+                    .parallel()
+                    .mapToDouble(shift -> LetterFrequencies.chiSquared(histogram, shift))
+                    .toArray()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scoring shifts", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to score shifts", e.getCause());
+        }
+        
+        return new Result(bestShift(scores), scores);
+    }
+    
+    /**
+     * Sequential scoring for callers that already run in parallel, such as the
+     * per-column solver of the Vigenere breaker.
+     */
+    public static int bestShift(int[] histogram) {
+        double[] scores = new double[26];
+        for (int shift = 0; shift < 26; shift++) {
+            scores[shift] = LetterFrequencies.chiSquared(histogram, shift);
+        }
+        return bestShift(scores);
+    }
+    
+    private static int bestShift(double[] scores) {
+        int best = 0;
+        for (int shift = 1; shift < 26; shift++) {
+            if (scores[shift] < scores[best]) {
+                best = shift;
+            }
+        }
+        return best;
+    }
+    
+    public static class Result {
+        private final int shift;
+        private final double[] scores;
+        
+        Result(int shift, double[] scores) {
+            this.shift = shift;
+            this.scores = scores;
+        }
+        
+        public int getShift() {
+            return shift;
+        }
+        
+        public String getKey() {
+            return String.valueOf(shift);
+        }
+        
+        public double getChiSquared() {
+            return scores[shift];
+        }
+        
+        public double getChiSquared(int candidateShift) {
+            return scores[Math.floorMod(candidateShift, 26)];
+        }
+        
+        public CipherResult decrypt(String ciphertext) {
+            return new CaesarCipher().decrypt(ciphertext, getKey());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.cipherforge.analysis;
+
+public class CaesarBreakerProvider implements BreakerProvider {
+    @Override
+    public String getAlgorithm() {
+        return "Caesar Cipher";
+    }
+    
+    @Override
+    public KeyBreaker createBreaker() {
+        return new CaesarBreaker();
+    }
+}
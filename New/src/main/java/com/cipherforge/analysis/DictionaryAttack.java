@@ -0,0 +1,444 @@
+package com.cipherforge.analysis;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.cipherforge.algorithms.VigenereCipher;
+import com.cipherforge.core.CipherResult;
+import com.cipherforge.parallel.IoExecutors;
+
+/**
+ * Tries every keyword of a wordlist against a Vigenere ciphertext and keeps
+ * the ones whose decryption looks most like English.
+ *
+ * Only a short prefix of the ciphertext's letters is decrypted per candidate,
+ * and it is scored with a QuadgramModel one letter at a time. Every few
+ * letters the running score plus the best score the remaining quadgrams could
+ * still add is compared with the worst of the current top K; once it cannot
+ * reach it the candidate is abandoned. This bound is exact, so abandoning
+ * never drops a key that would have made the top K.
+ *
+ * The wordlist is streamed: the calling thread reads it in batches into a
+ * small bounded queue that one worker per core drains, so memory use does not
+ * depend on the wordlist size. Each worker keeps its own top K, merged at the
+ * end, so workers share nothing while scoring. While the queue is full the
+ * reader checks the workers, so one that failed ends the attack with its
+ * error instead of leaving the reader waiting for space.
+ */
+public class DictionaryAttack {
+    public static final int DEFAULT_PREFIX_LETTERS = 100;
+    public static final int DEFAULT_TOP_K = 10;
+    
+    private static final int BATCH_SIZE = 4096;
+    private static final int CHECK_INTERVAL = 8;
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+    private static final String[] END = new String[0];
+    
+    private final QuadgramModel model;
+    private final int threads;
+    private final int prefixLetters;
+    private final int topK;
+    
+    public DictionaryAttack() {
+        this(QuadgramModel.english(), Runtime.getRuntime().availableProcessors(), DEFAULT_PREFIX_LETTERS,
+                DEFAULT_TOP_K);
+    }
+    
+    public DictionaryAttack(QuadgramModel model, int threads, int prefixLetters, int topK) {
+        if (threads < 1 || topK < 1) {
+            throw new IllegalArgumentException("Threads and top K must be at least 1.");
+        }
+        if (prefixLetters < 4) {
+            throw new IllegalArgumentException("The scored prefix needs at least 4 letters: " + prefixLetters);
+        }
+        this.model = model;
+        this.threads = threads;
+        this.prefixLetters = prefixLetters;
+        this.topK = topK;
+    }
+    
+    public Result attack(CharSequence ciphertext, Path wordlist) throws IOException {
+        try (Reader reader = Files.newBufferedReader(wordlist, StandardCharsets.UTF_8)) {
+            return attack(ciphertext, reader);
+        }
+    }
+    
+    /**
+     * Tries each line of wordlist as a keyword. Lines with anything but the
+     * letters A-Z and a-z are counted as skipped.
+     */
+    public Result attack(CharSequence ciphertext, Reader wordlist) throws IOException {
+        final byte[] letters = prefix(ciphertext);
+        long startNanos = System.nanoTime();
+        BlockingQueue<String[]> queue = new ArrayBlockingQueue<String[]>(2 * threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, IoExecutors.daemonThreads("dictionary-attack"));
+        List<Future<Worker>> futures = new ArrayList<Future<Worker>>(threads);
+        
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Worker(letters, queue)));
+            }
+            
+            BufferedReader lines = new BufferedReader(wordlist);
+            String[] batch = new String[BATCH_SIZE];
+            int filled = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                batch[filled++] = line;
+                if (filled == BATCH_SIZE) {
+                    hand(queue, batch, futures);
+                    batch = new String[BATCH_SIZE];
+                    filled = 0;
+                }
+            }
+            if (filled > 0) {
+                String[] last = new String[filled];
+                System.arraycopy(batch, 0, last, 0, filled);
+                hand(queue, last, futures);
+            }
+            for (int i = 0; i < threads; i++) {
+                hand(queue, END, futures);
+            }
+            
+            List<Worker> workers = new ArrayList<Worker>(threads);
+            for (Future<Worker> future : futures) {
+                workers.add(future.get());
+            }
+            return merge(workers, System.nanoTime() - startNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted during dictionary attack.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Dictionary attack worker failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Queues batch for the workers. While the queue stays full, a worker that
+     * has failed is reported through its future rather than waited on. A read
+     * error leaves the workers blocked on take(), where shutdownNow interrupts
+     * them.
+     */
+    private static void hand(BlockingQueue<String[]> queue, String[] batch, List<Future<Worker>> futures)
+            throws InterruptedException, ExecutionException {
+        while (!queue.offer(batch, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            for (Future<Worker> future : futures) {
+                if (future.isDone()) {
+                    future.get();
+                }
+            }
+        }
+    }
+    
+    /**
+     * A KeyBreaker that attacks with the keywords of wordlist. It reports the
+     * rate and the ranked keys, and recovers nothing if no line was a usable
+     * keyword.
+     */
+    public KeyBreaker forWordlist(final Path wordlist) {
+        return new KeyBreaker() {
+            @Override
+            public String recoverKey(CharSequence ciphertext, PrintStream report) throws IOException {
+                Result result = attack(ciphertext, wordlist);
+                report.printf("Tried %d keywords in %.2f s (%.0f/s, %d abandoned early, %d lines skipped)%n",
+                        result.getTested(), result.getElapsedNanos() / 1e9, result.getCandidatesPerSecond(),
+                        result.getAbandoned(), result.getSkipped());
+                int rank = 1;
+                for (Candidate candidate : result.getCandidates()) {
+                    report.printf("%3d. %-20s %.1f%n", rank++, candidate.getKey(), candidate.getScore());
+                }
+                if (result.getKey() == null) {
+                    report.println("No keyword in " + wordlist + " could be tried.");
+                }
+                return result.getKey();
+            }
+        };
+    }
+    
+    /**
+     * The first prefixLetters ASCII letters of ciphertext as indices 0-25.
+     */
+    private byte[] prefix(CharSequence ciphertext) {
+        byte[] letters = new byte[prefixLetters];
+        int count = 0;
+        for (int i = 0; i < ciphertext.length() && count < prefixLetters; i++) {
+            int letter = LetterFrequencies.letterIndex(ciphertext.charAt(i));
+            if (letter >= 0) {
+                letters[count++] = (byte) letter;
+            }
+        }
+        if (count < 4) {
+            throw new IllegalArgumentException("Ciphertext needs at least 4 letters to score.");
+        }
+        
+        byte[] trimmed = new byte[count];
+        System.arraycopy(letters, 0, trimmed, 0, count);
+        return trimmed;
+    }
+    
+    private Result merge(List<Worker> workers, long elapsedNanos) {
+        List<Candidate> all = new ArrayList<Candidate>();
+        long tested = 0;
+        long abandoned = 0;
+        long skipped = 0;
+        
+        for (Worker worker : workers) {
+            for (int i = 0; i < worker.size; i++) {
+                all.add(new Candidate(worker.keys[i], worker.scores[i]));
+            }
+            tested += worker.tested;
+            abandoned += worker.abandoned;
+            skipped += worker.skipped;
+        }
+        
+        Collections.sort(all, new Comparator<Candidate>() {
+            @Override
+            public int compare(Candidate a, Candidate b) {
+                return Double.compare(b.score, a.score);
+            }
+        });
+        
+        List<Candidate> best = new ArrayList<Candidate>(topK);
+        for (Candidate candidate : all) {
+            if (best.size() == topK) {
+                break;
+            }
+            if (!best.contains(candidate)) {
+                best.add(candidate);
+            }
+        }
+        return new Result(best, tested, abandoned, skipped, elapsedNanos);
+    }
+    
+    /**
+     * Scores the batches it takes from the queue until it sees END. Its top K
+     * is kept worst-first in plain arrays.
+     */
+    private final class Worker implements Callable<Worker> {
+        private final byte[] letters;
+        private final BlockingQueue<String[]> queue;
+        private final float[] table = model.scores;
+        private final float maxScore = model.getMaxScore();
+        private int[] shifts = new int[64];
+        final String[] keys = new String[topK];
+        final double[] scores = new double[topK];
+        int size;
+        long tested;
+        long abandoned;
+        long skipped;
+        
+        Worker(byte[] letters, BlockingQueue<String[]> queue) {
+            this.letters = letters;
+            this.queue = queue;
+        }
+        
+        @Override
+        public Worker call() throws InterruptedException {
+            String[] batch;
+            while ((batch = queue.take()) != END) {
+                for (String word : batch) {
+                    test(word);
+                }
+            }
+            return this;
+        }
+        
+        private void test(String word) {
+            int period = word.length();
+            if (period == 0) {
+                skipped++;
+                return;
+            }
+            if (period > shifts.length) {
+                shifts = new int[period];
+            }
+            for (int i = 0; i < period; i++) {
+                int letter = LetterFrequencies.letterIndex(word.charAt(i));
+                if (letter < 0) {
+                    skipped++;
+                    return;
+                }
+                shifts[i] = letter;
+            }
+            
+            tested++;
+            double threshold = size == topK ? scores[0] : Double.NEGATIVE_INFINITY;
+            int length = letters.length;
+            double score = 0;
+            int index = 0;
+            int keyIndex = 0;
+            
+            for (int i = 0; i < length; i++) {
+                int plain = letters[i] - shifts[keyIndex];
+                if (plain < 0) {
+                    plain += 26;
+                }
+                if (++keyIndex == period) {
+                    keyIndex = 0;
+                }
+                
+                index = index % QuadgramModel.TRIGRAMS * 26 + plain;
+                if (i >= 3) {
+                    score += table[index];
+                    if ((i & (CHECK_INTERVAL - 1)) == 0 && score + (length - 1 - i) * maxScore < threshold) {
+                        abandoned++;
+                        return;
+                    }
+                }
+            }
+            
+            if (score > threshold) {
+                insert(word.toUpperCase(), score);
+            }
+        }
+        
+        /**
+         * Adds key to the top K, replacing the worst entry when full. A key
+         * already present (e.g. the same word in another case) is kept once.
+         */
+        private void insert(String key, double score) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i].equals(key)) {
+                    return;
+                }
+            }
+            
+            int position;
+            if (size < topK) {
+                position = size++;
+            } else {
+                position = 0;
+            }
+            keys[position] = key;
+            scores[position] = score;
+            
+            // Sink the worst entry to index 0 so it is the pruning threshold.
+            for (int i = 1; i < size; i++) {
+                if (scores[i] < scores[0]) {
+                    double s = scores[0];
+                    scores[0] = scores[i];
+                    scores[i] = s;
+                    String k = keys[0];
+                    keys[0] = keys[i];
+                    keys[i] = k;
+                }
+            }
+        }
+    }
+    
+    /**
+     * A keyword and the quadgram score of the prefix it decrypts to. Higher
+     * is more English-like.
+     */
+    public static final class Candidate {
+        private final String key;
+        private final double score;
+        
+        Candidate(String key, double score) {
+            this.key = key;
+            this.score = score;
+        }
+        
+        public String getKey() {
+            return key;
+        }
+        
+        public double getScore() {
+            return score;
+        }
+        
+        public CipherResult decrypt(String ciphertext) {
+            return new VigenereCipher().decrypt(ciphertext, key);
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Candidate && ((Candidate) other).key.equals(key);
+        }
+        
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%s (%.1f)", key, score);
+        }
+    }
+    
+    public static class Result {
+        private final List<Candidate> candidates;
+        private final long tested;
+        private final long abandoned;
+        private final long skipped;
+        private final long elapsedNanos;
+        
+        Result(List<Candidate> candidates, long tested, long abandoned, long skipped, long elapsedNanos) {
+            this.candidates = Collections.unmodifiableList(candidates);
+            this.tested = tested;
+            this.abandoned = abandoned;
+            this.skipped = skipped;
+            this.elapsedNanos = elapsedNanos;
+        }
+        
+        /**
+         * The best keys found, best first; at most top K of them.
+         */
+        public List<Candidate> getCandidates() {
+            return candidates;
+        }
+        
+        /**
+         * The best key, or null if the wordlist held no usable keyword.
+         */
+        public String getKey() {
+            return candidates.isEmpty() ? null : candidates.get(0).getKey();
+        }
+        
+        public long getTested() {
+            return tested;
+        }
+        
+        /**
+         * Candidates dropped before their whole prefix was scored.
+         */
+        public long getAbandoned() {
+            return abandoned;
+        }
+        
+        /**
+         * Wordlist lines that were not letters-only keywords.
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+        
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+        
+        public double getCandidatesPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : tested * 1e9 / elapsedNanos;
+        }
+    }
+}
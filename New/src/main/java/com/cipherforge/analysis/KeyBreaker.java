@@ -0,0 +1,28 @@
+package com.cipherforge.analysis;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+/**
+ * Recovers a cipher's key from ciphertext alone. Breakers are registered with
+ * a BreakerProvider and looked up through BreakerRegistry, so callers such as
+ * the command line need no per-cipher code.
+ */
+public interface KeyBreaker {
+    /**
+     * Returns the most likely key for ciphertext, or null if none was found.
+     * Statistics worth showing the user, such as rates or runner-up keys, are
+     * written to report.
+     */
+    String recoverKey(CharSequence ciphertext, PrintStream report) throws IOException;
+    
+    /**
+     * Returns a breaker that tries each line of wordlist as the key and
+     * reports the best top of them, or null if the cipher has no dictionary
+     * attack (the default).
+     */
+    default KeyBreaker withWordlist(Path wordlist, int top) {
+        return null;
+    }
+}
@@ -0,0 +1,134 @@
+package com.cipherforge.analysis;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * English letter statistics and single-pass letter histograms. Histograms
+ * fold case and count only the ASCII letters A-Z and a-z.
+ */
+public final class LetterFrequencies {
+    public static final double[] ENGLISH = {
+        0.08167, 0.01492, 0.02782, 0.04253, 0.12702, 0.02228, 0.02015,
+        0.06094, 0.06966, 0.00153, 0.00772, 0.04025, 0.02406, 0.06749,
+        0.07507, 0.01929, 0.00095, 0.05987, 0.06327, 0.09056, 0.02758,
+        0.00978, 0.02360, 0.00150, 0.01974, 0.00074
+    };
+    
+    public static final double ENGLISH_INDEX_OF_COINCIDENCE = 0.0667;
+    public static final double RANDOM_INDEX_OF_COINCIDENCE = 1.0 / 26;
+    
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    
+    private LetterFrequencies() {
+    }
+    
+    /**
+     * Returns the letter index 0-25 of an ASCII letter, or -1 for anything else.
+     */
+    public static int letterIndex(char ch) {
+        int upper = (ch | 0x20) - 'a';
+        return upper >= 0 && upper < 26 ? upper : -1;
+    }
+    
+    public static int[] histogram(CharSequence text) {
+        return histogram(text, 0, text.length());
+    }
+    
+    public static int[] histogram(CharSequence text, int from, int to) {
+        int[] counts = new int[26];
+        
+        for (int i = from; i < to; i++) {
+            int letter = letterIndex(text.charAt(i));
+            if (letter >= 0) {
+                counts[letter]++;
+            }
+        }
+        
+        return counts;
+    }
+    
+    /**
+     * Builds the histogram in one pass over the text, splitting large inputs
+     * across the pool and summing the per-chunk counts.
+     */
+    public static int[] histogram(CharSequence text, ForkJoinPool pool) {
+        if (text.length() < PARALLEL_THRESHOLD) {
+            return histogram(text);
+        }
+        return pool.invoke(new HistogramTask(text, 0, text.length()));
+    }
+    
+    public static long total(int[] histogram) {
+        long total = 0;
+        for (int count : histogram) {
+            total += count;
+        }
+        return total;
+    }
+    
+    /**
+     * Chi-squared distance between English and the text obtained by shifting
+     * every letter back by shift. The histogram is rotated rather than the text
+     * re-decrypted.
+     */
+    public static double chiSquared(int[] histogram, int shift) {
+        long total = total(histogram);
+        if (total == 0) {
+            return 0.0;
+        }
+        
+        double score = 0.0;
+        for (int plain = 0; plain < 26; plain++) {
+            double expected = total * ENGLISH[plain];
+            double diff = histogram[(plain + shift) % 26] - expected;
+            score += diff * diff / expected;
+        }
+        return score;
+    }
+    
+    public static double indexOfCoincidence(int[] histogram) {
+        long total = total(histogram);
+        if (total < 2) {
+            return 0.0;
+        }
+        
+        long pairs = 0;
+        for (int count : histogram) {
+            pairs += (long) count * (count - 1);
+        }
+        return (double) pairs / (total * (total - 1));
+    }
+    
+    private static final class HistogramTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+        
+        private final CharSequence text;
+        private final int from;
+        private final int to;
+        
+        HistogramTask(CharSequence text, int from, int to) {
+            this.text = text;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected int[] compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                return histogram(text, from, to);
+            }
+            
+            int mid = (from + to) >>> 1;
+            HistogramTask left = new HistogramTask(text, from, mid);
+            left.fork();
+            int[] counts = new HistogramTask(text, mid, to).compute();
+            int[] other = left.join();
+            
+            for (int i = 0; i < 26; i++) {
+                counts[i] += other[i];
+            }
+            return counts;
+        }
+    }
+}
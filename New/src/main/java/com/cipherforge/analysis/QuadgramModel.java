@@ -0,0 +1,243 @@
+package com.cipherforge.analysis;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Log10 probabilities of the 26^4 letter quadgrams, held in one float array
+ * indexed by a*26^3 + b*26^2 + c*26 + d, so a scorer can slide a window over
+ * letter indices with one multiply-add and one array load per letter.
+ *
+ * Counts are smoothed towards the product of the four letters' English
+ * frequencies, so an unseen quadgram of common letters scores better than one
+ * full of Q, X and Z; that keeps the landscape graded for hill climbing.
+ */
+public final class QuadgramModel {
+    public static final int SIZE = 26 * 26 * 26 * 26;
+    
+    static final int TRIGRAMS = 26 * 26 * 26;
+    
+    private static final String WORDS_RESOURCE = "english-words.txt";
+    private static final int SAMPLE_WORDS = 1 << 20;
+    private static final double SMOOTHING = 0.02;
+    
+    final float[] scores;
+    private final float maxScore;
+    
+    private QuadgramModel(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("No quadgrams to build a model from.");
+        }
+        
+        double letterTotal = 0;
+        for (double frequency : LetterFrequencies.ENGLISH) {
+            letterTotal += frequency;
+        }
+        double[] letters = new double[26];
+        for (int i = 0; i < 26; i++) {
+            letters[i] = LetterFrequencies.ENGLISH[i] / letterTotal;
+        }
+        
+        scores = new float[SIZE];
+        float max = Float.NEGATIVE_INFINITY;
+        for (int index = 0; index < SIZE; index++) {
+            double background = letters[index / TRIGRAMS] * letters[index / 676 % 26] * letters[index / 26 % 26]
+                    * letters[index % 26];
+            double probability = (counts[index] + SMOOTHING * total * background) / (total * (1 + SMOOTHING));
+            scores[index] = (float) Math.log10(probability);
+            max = Math.max(max, scores[index]);
+        }
+        maxScore = max;
+    }
+    
+    /**
+     * The built-in model, derived from a list of common English words weighted
+     * by rank. It is built on first use and shared. A model trained on a real
+     * corpus, or loaded from published counts, scores rarer words better.
+     */
+    public static QuadgramModel english() {
+        return English.MODEL;
+    }
+    
+    /**
+     * Counts the quadgrams of a text corpus. Non-letters are skipped, so
+     * quadgrams run across word boundaries as they do in ciphertext.
+     */
+    public static QuadgramModel train(Reader corpus) throws IOException {
+        long[] counts = new long[SIZE];
+        char[] buffer = new char[8192];
+        int index = 0;
+        int letters = 0;
+        int read;
+        
+        while ((read = corpus.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                int letter = LetterFrequencies.letterIndex(buffer[i]);
+                if (letter >= 0) {
+                    index = index % TRIGRAMS * 26 + letter;
+                    if (letters < 4) {
+                        letters++;
+                    }
+                    if (letters >= 4) {
+                        counts[index]++;
+                    }
+                }
+            }
+        }
+        
+        return new QuadgramModel(counts);
+    }
+    
+    /**
+     * Reads published quadgram counts, one "TION 13168375" pair per line.
+     */
+    public static QuadgramModel fromCounts(Reader counts) throws IOException {
+        long[] table = new long[SIZE];
+        BufferedReader lines = new BufferedReader(counts);
+        String line;
+        int number = 0;
+        
+        while ((line = lines.readLine()) != null) {
+            number++;
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            
+            String[] fields = line.split("\\s+");
+            int index = fields.length == 2 ? index(fields[0]) : -1;
+            if (index < 0) {
+                throw new IOException("Line " + number + " is not a quadgram and count: " + line);
+            }
+            try {
+                table[index] += Long.parseLong(fields[1]);
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + number + " has an invalid count: " + line);
+            }
+        }
+        
+        return new QuadgramModel(table);
+    }
+    
+    /**
+     * The log10 probability of the quadgram at index.
+     */
+    public float score(int index) {
+        return scores[index];
+    }
+    
+    /**
+     * The best score of any single quadgram, an upper bound for pruning.
+     */
+    public float getMaxScore() {
+        return maxScore;
+    }
+    
+    /**
+     * Sums the scores of the letter quadgrams of text, ignoring non-letters.
+     */
+    public double score(CharSequence text) {
+        double total = 0;
+        int index = 0;
+        int letters = 0;
+        
+        for (int i = 0; i < text.length(); i++) {
+            int letter = LetterFrequencies.letterIndex(text.charAt(i));
+            if (letter >= 0) {
+                index = index % TRIGRAMS * 26 + letter;
+                if (letters < 4) {
+                    letters++;
+                }
+                if (letters >= 4) {
+                    total += scores[index];
+                }
+            }
+        }
+        return total;
+    }
+    
+    private static int index(String quadgram) {
+        if (quadgram.length() != 4) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = 0; i < 4; i++) {
+            int letter = LetterFrequencies.letterIndex(quadgram.charAt(i));
+            if (letter < 0) {
+                return -1;
+            }
+            index = index * 26 + letter;
+        }
+        return index;
+    }
+    
+    /**
+     * Holder for the built-in model, so it is only built when first used.
+     */
+    private static final class English {
+        static final QuadgramModel MODEL = build();
+        
+        private static QuadgramModel build() {
+            List<String> words = new ArrayList<String>();
+            try (InputStream in = QuadgramModel.class.getResourceAsStream(WORDS_RESOURCE)) {
+                if (in == null) {
+                    throw new IllegalStateException("Missing resource " + WORDS_RESOURCE);
+                }
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty() && line.charAt(0) != '#') {
+                        words.add(line);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            
+            // Zipf weights: a fixed-seed sample of running text drawn from them
+            // gives the quadgrams both within and across words.
+            double[] cumulative = new double[words.size()];
+            double sum = 0;
+            for (int i = 0; i < cumulative.length; i++) {
+                sum += 1.0 / (i + 1);
+                cumulative[i] = sum;
+            }
+            
+            long[] counts = new long[SIZE];
+            SplittableRandom random = new SplittableRandom(SIZE);
+            int index = 0;
+            int letters = 0;
+            for (int n = 0; n < SAMPLE_WORDS; n++) {
+                int position = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                String word = words.get(position >= 0 ? position : Math.min(-position - 1, cumulative.length - 1));
+                for (int i = 0; i < word.length(); i++) {
+                    int letter = LetterFrequencies.letterIndex(word.charAt(i));
+                    if (letter >= 0) {
+                        index = index % TRIGRAMS * 26 + letter;
+                        if (letters < 4) {
+                            letters++;
+                        }
+                        if (letters >= 4) {
+                            counts[index]++;
+                        }
+                    }
+                }
+            }
+            return new QuadgramModel(counts);
+        }
+    }
+}
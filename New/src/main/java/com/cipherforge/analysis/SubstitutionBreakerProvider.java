@@ -0,0 +1,13 @@
+package com.cipherforge.analysis;
+
+public class SubstitutionBreakerProvider implements BreakerProvider {
+    @Override
+    public String getAlgorithm() {
+        return "Substitution Cipher";
+    }
+    
+    @Override
+    public KeyBreaker createBreaker() {
+        return new SubstitutionSolver();
+    }
+}
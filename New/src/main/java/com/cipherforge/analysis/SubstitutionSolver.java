@@ -0,0 +1,400 @@
+package com.cipherforge.analysis;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.cipherforge.algorithms.SubstitutionCipher;
+import com.cipherforge.core.CipherResult;
+import com.cipherforge.parallel.IoExecutors;
+
+/**
+ * Recovers a SubstitutionCipher key by random-restart hill climbing on
+ * quadgram scores.
+ *
+ * The ciphertext's letter quadgrams are counted once. A candidate key is then
+ * scored as the sum, over the distinct ciphertext quadgrams, of count times
+ * the log probability of what that quadgram decrypts to; no text is
+ * decrypted. A climbing step swaps what two ciphertext letters decrypt to,
+ * which only changes the quadgrams containing one of them, so each letter
+ * keeps the list of its quadgrams and a swap re-scores just those terms.
+ *
+ * Each restart starts from its own seeded random key and climbs until no swap
+ * improves it. Restarts are independent and shared out to one worker per
+ * core, each keeping its own best, so the result depends on the seed and the
+ * number of restarts but not on the thread count.
+ */
+public class SubstitutionSolver implements KeyBreaker {
+    public static final int DEFAULT_RESTARTS = 200;
+    public static final long DEFAULT_SEED = 0x5EEDL;
+    
+    private final QuadgramModel model;
+    private final int threads;
+    private final int restarts;
+    private final long seed;
+    
+    public SubstitutionSolver() {
+        this(QuadgramModel.english(), Runtime.getRuntime().availableProcessors(), DEFAULT_RESTARTS, DEFAULT_SEED);
+    }
+    
+    public SubstitutionSolver(QuadgramModel model, int threads, int restarts, long seed) {
+        if (threads < 1 || restarts < 1) {
+            throw new IllegalArgumentException("Threads and restarts must be at least 1.");
+        }
+        this.model = model;
+        this.threads = threads;
+        this.restarts = restarts;
+        this.seed = seed;
+    }
+    
+    public Result solve(CharSequence ciphertext) {
+        Quadgrams quadgrams = new Quadgrams(ciphertext);
+        long startNanos = System.nanoTime();
+        int workerCount = Math.min(threads, restarts);
+        AtomicInteger nextRestart = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount,
+                IoExecutors.daemonThreads("substitution-solver"));
+                
+        try {
+            List<Future<Climber>> futures = new ArrayList<Future<Climber>>(workerCount);
+            for (int i = 0; i < workerCount; i++) {
+                futures.add(executor.submit(new Climber(quadgrams, nextRestart)));
+            }
+            
+            List<Climber> climbers = new ArrayList<Climber>(workerCount);
+            Climber best = null;
+            for (Future<Climber> future : futures) {
+                Climber climber = future.get();
+                climbers.add(climber);
+                if (best == null || climber.bestScore > best.bestScore
+                        || climber.bestScore == best.bestScore && climber.bestRestart < best.bestRestart) {
+                    best = climber;
+                }
+            }
+            
+            int hits = 0;
+            long evaluations = 0;
+            for (Climber climber : climbers) {
+                evaluations += climber.evaluations;
+                if (climber.bestScore == best.bestScore) {
+                    hits += climber.hits;
+                }
+            }
+            
+            return new Result(best.bestKey(), best.bestScore, restarts, hits, evaluations,
+                    System.nanoTime() - startNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Substitution solver worker failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Solves ciphertext and reports the restarts, the swap rate and how often
+     * the best score was reached.
+     */
+    @Override
+    public String recoverKey(CharSequence ciphertext, PrintStream report) {
+        Result result = solve(ciphertext);
+        report.printf("Climbed %d restarts in %.2f s (%.0f swaps/s); the best score was reached %d times%n",
+                result.getRestarts(), result.getElapsedNanos() / 1e9, result.getEvaluationsPerSecond(),
+                result.getHits());
+        return result.getKey();
+    }
+    
+    /**
+     * The distinct letter quadgrams of a ciphertext with their counts, and for
+     * each ciphertext letter the quadgrams it occurs in.
+     */
+    private static final class Quadgrams {
+        final int size;
+        final int[] counts;
+        final byte[] letters;
+        final int[][] byLetter;
+        
+        Quadgrams(CharSequence ciphertext) {
+            int[] seen = new int[QuadgramModel.SIZE];
+            int[] codes = new int[Math.max(0, ciphertext.length() - 3)];
+            int distinct = 0;
+            int index = 0;
+            int letterCount = 0;
+            
+            for (int i = 0; i < ciphertext.length(); i++) {
+                int letter = LetterFrequencies.letterIndex(ciphertext.charAt(i));
+                if (letter < 0) {
+                    continue;
+                }
+                index = index % QuadgramModel.TRIGRAMS * 26 + letter;
+                if (++letterCount >= 4 && seen[index]++ == 0) {
+                    codes[distinct++] = index;
+                }
+            }
+            if (distinct == 0) {
+                throw new IllegalArgumentException("Ciphertext needs at least 4 letters to score.");
+            }
+            
+            size = distinct;
+            counts = new int[distinct];
+            letters = new byte[4 * distinct];
+            int[] perLetter = new int[26];
+            for (int q = 0; q < distinct; q++) {
+                int code = codes[q];
+                counts[q] = seen[code];
+                letters[4 * q] = (byte) (code / QuadgramModel.TRIGRAMS);
+                letters[4 * q + 1] = (byte) (code / 676 % 26);
+                letters[4 * q + 2] = (byte) (code / 26 % 26);
+                letters[4 * q + 3] = (byte) (code % 26);
+                for (int k = 0; k < 4; k++) {
+                    if (!repeats(q, k)) {
+                        perLetter[letters[4 * q + k]]++;
+                    }
+                }
+            }
+            
+            byLetter = new int[26][];
+            for (int letter = 0; letter < 26; letter++) {
+                byLetter[letter] = new int[perLetter[letter]];
+                perLetter[letter] = 0;
+            }
+            for (int q = 0; q < distinct; q++) {
+                for (int k = 0; k < 4; k++) {
+                    if (!repeats(q, k)) {
+                        int letter = letters[4 * q + k];
+                        byLetter[letter][perLetter[letter]++] = q;
+                    }
+                }
+            }
+        }
+        
+        /**
+         * True if the k-th letter of quadgram q already occurs before it, so
+         * q is listed once per distinct letter.
+         */
+        private boolean repeats(int q, int k) {
+            for (int j = 0; j < k; j++) {
+                if (letters[4 * q + j] == letters[4 * q + k]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        boolean contains(int q, int letter) {
+            int base = 4 * q;
+            return letters[base] == letter || letters[base + 1] == letter || letters[base + 2] == letter
+                    || letters[base + 3] == letter;
+        }
+    }
+    
+    /**
+     * Runs restarts until none are left, keeping the best key it reached.
+     * decrypt[c] is the plaintext letter of ciphertext letter c and terms[q]
+     * the current score of quadgram q.
+     */
+    private final class Climber implements Callable<Climber> {
+        private final Quadgrams quadgrams;
+        private final AtomicInteger nextRestart;
+        private final float[] table = model.scores;
+        private final int[] decrypt = new int[26];
+        private final double[] terms;
+        private final int[] best = new int[26];
+        double bestScore = Double.NEGATIVE_INFINITY;
+        int bestRestart = Integer.MAX_VALUE;
+        int hits;
+        long evaluations;
+        
+        Climber(Quadgrams quadgrams, AtomicInteger nextRestart) {
+            this.quadgrams = quadgrams;
+            this.nextRestart = nextRestart;
+            this.terms = new double[quadgrams.size];
+        }
+        
+        @Override
+        public Climber call() {
+            int restart;
+            while ((restart = nextRestart.getAndIncrement()) < restarts) {
+                double score = climb(new SplittableRandom(seed + restart));
+                if (score > bestScore || score == bestScore && restart < bestRestart) {
+                    hits = score == bestScore ? hits + 1 : 1;
+                    bestScore = score;
+                    bestRestart = restart;
+                    System.arraycopy(decrypt, 0, best, 0, 26);
+                } else if (score == bestScore) {
+                    hits++;
+                }
+            }
+            return this;
+        }
+        
+        private double climb(SplittableRandom random) {
+            for (int i = 0; i < 26; i++) {
+                decrypt[i] = i;
+            }
+            for (int i = 25; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int t = decrypt[i];
+                decrypt[i] = decrypt[j];
+                decrypt[j] = t;
+            }
+            for (int q = 0; q < quadgrams.size; q++) {
+                terms[q] = term(q);
+            }
+            
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                for (int a = 0; a < 25; a++) {
+                    for (int b = a + 1; b < 26; b++) {
+                        if (quadgrams.byLetter[a].length + quadgrams.byLetter[b].length > 0 && trySwap(a, b)) {
+                            improved = true;
+                        }
+                    }
+                }
+            }
+            
+            // Re-sum rather than trust the accumulated deltas, so equal keys
+            // always get bit-identical scores.
+            double score = 0;
+            for (int q = 0; q < quadgrams.size; q++) {
+                score += terms[q];
+            }
+            return score;
+        }
+        
+        /**
+         * Swaps the decryptions of ciphertext letters a and b and keeps the
+         * swap if it raises the score. Only quadgrams containing a or b are
+         * re-scored.
+         */
+        private boolean trySwap(int a, int b) {
+            evaluations++;
+            swap(a, b);
+            
+            int[] withA = quadgrams.byLetter[a];
+            int[] withB = quadgrams.byLetter[b];
+            double delta = 0;
+            for (int q : withA) {
+                delta += term(q) - terms[q];
+            }
+            for (int q : withB) {
+                if (!quadgrams.contains(q, a)) {
+                    delta += term(q) - terms[q];
+                }
+            }
+            
+            if (delta <= 0) {
+                swap(a, b);
+                return false;
+            }
+            
+            for (int q : withA) {
+                terms[q] = term(q);
+            }
+            for (int q : withB) {
+                terms[q] = term(q);
+            }
+            return true;
+        }
+        
+        private double term(int q) {
+            byte[] letters = quadgrams.letters;
+            int base = 4 * q;
+            int index = ((decrypt[letters[base]] * 26 + decrypt[letters[base + 1]]) * 26
+                    + decrypt[letters[base + 2]]) * 26 + decrypt[letters[base + 3]];
+            return quadgrams.counts[q] * (double) table[index];
+        }
+        
+        private void swap(int a, int b) {
+            int t = decrypt[a];
+            decrypt[a] = decrypt[b];
+            decrypt[b] = t;
+        }
+        
+        /**
+         * The encryption key for the best decryption found: the ciphertext
+         * letter of each plaintext letter A-Z.
+         */
+        String bestKey() {
+            char[] key = new char[26];
+            for (int c = 0; c < 26; c++) {
+                key[best[c]] = (char) ('A' + c);
+            }
+            return new String(key);
+        }
+    }
+    
+    public static class Result {
+        private final String key;
+        private final double score;
+        private final int restarts;
+        private final int hits;
+        private final long evaluations;
+        private final long elapsedNanos;
+        
+        Result(String key, double score, int restarts, int hits, long evaluations, long elapsedNanos) {
+            this.key = key;
+            this.score = score;
+            this.restarts = restarts;
+            this.hits = hits;
+            this.evaluations = evaluations;
+            this.elapsedNanos = elapsedNanos;
+        }
+        
+        /**
+         * The best key found, as a SubstitutionCipher key.
+         */
+        public String getKey() {
+            return key;
+        }
+        
+        /**
+         * The quadgram score of the ciphertext decrypted with the key. Higher
+         * is more English-like.
+         */
+        public double getScore() {
+            return score;
+        }
+        
+        public int getRestarts() {
+            return restarts;
+        }
+        
+        /**
+         * How many restarts ended on the best score. One hit out of many
+         * restarts suggests more restarts could still find a better key.
+         */
+        public int getHits() {
+            return hits;
+        }
+        
+        /**
+         * Candidate swaps scored across all restarts.
+         */
+        public long getEvaluations() {
+            return evaluations;
+        }
+        
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+        
+        public double getEvaluationsPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : evaluations * 1e9 / elapsedNanos;
+        }
+        
+        public CipherResult decrypt(String ciphertext) {
+            return new SubstitutionCipher().decrypt(ciphertext, key);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.cipherforge.analysis;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+import com.cipherforge.algorithms.VigenereCipher;
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.core.CipherResult;
+
+/**
+ * Recovers a Vigenere key without knowing its length. Key lengths up to the
+ * configured maximum are ranked by the mean column index of coincidence and by
+ * the share of Kasiski repeat distances they divide; each column of the winning
+ * length is then solved in parallel as a Caesar cipher.
+ */
+public class VigenereBreaker implements KeyBreaker {
+    public static final int DEFAULT_MAX_KEY_LENGTH = 100;
+    
+    private static final int MIN_LETTERS_PER_COLUMN = 20;
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final double KASISKI_WEIGHT = 0.5;
+    private static final double SCORE_TOLERANCE = 0.9;
+    
+    private final ForkJoinPool pool;
+    private final int maxKeyLength;
+    
+    public VigenereBreaker() {
+        this(ForkJoinPool.commonPool(), DEFAULT_MAX_KEY_LENGTH);
+    }
+    
+    public VigenereBreaker(ForkJoinPool pool, int maxKeyLength) {
+        if (maxKeyLength < 1) {
+            throw new IllegalArgumentException("Maximum key length must be at least 1: " + maxKeyLength);
+        }
+        this.pool = pool;
+        this.maxKeyLength = maxKeyLength;
+    }
+    
+    public Result crack(CharSequence ciphertext) {
+        return crack(pool.invoke(new StatisticsTask(ciphertext, 0, ciphertext.length())));
+    }
+    
+    @Override
+    public String recoverKey(CharSequence ciphertext, PrintStream report) {
+        return crack(ciphertext).getKey();
+    }
+    
+    /**
+     * Runs a DictionaryAttack over wordlist on all cores instead of the
+     * statistical search.
+     */
+    @Override
+    public KeyBreaker withWordlist(Path wordlist, int top) {
+        return new DictionaryAttack(QuadgramModel.english(), Runtime.getRuntime().availableProcessors(),
+                DictionaryAttack.DEFAULT_PREFIX_LETTERS, top).forWordlist(wordlist);
+    }
+    
+    public Result crack(Reader input) throws IOException {
+        VigenereStatistics statistics = new VigenereStatistics(maxKeyLength);
+        char[] buffer = new char[CipherAlgorithm.DEFAULT_BUFFER_SIZE];
+        int read;
+        
+        while ((read = input.read(buffer)) != -1) {
+            statistics.accept(buffer, 0, read);
+        }
+        
+        return crack(statistics);
+    }
+    
+    public Result crack(VigenereStatistics statistics) {
+        int limit = (int) Math.min(statistics.getMaxKeyLength(),
+                Math.max(1, statistics.getLetterCount() / MIN_LETTERS_PER_COLUMN));
+                
+        double[] coincidence = new double[limit + 1];
+        long[] kasiski = new long[limit + 1];
+        double[] scores = new double[limit + 1];
+        long repeats = Math.max(1, statistics.kasiskiCount(1));
+        double span = LetterFrequencies.ENGLISH_INDEX_OF_COINCIDENCE - LetterFrequencies.RANDOM_INDEX_OF_COINCIDENCE;
+        
+        int best = 1;
+        for (int length = 1; length <= limit; length++) {
+            coincidence[length] = statistics.averageIndexOfCoincidence(length);
+            kasiski[length] = statistics.kasiskiCount(length);
+            
+            double closeness = (coincidence[length] - LetterFrequencies.RANDOM_INDEX_OF_COINCIDENCE) / span;
+            scores[length] = closeness + KASISKI_WEIGHT * kasiski[length] / repeats;
+            if (scores[length] > scores[best]) {
+                best = length;
+            }
+        }
+        
+        int keyLength = best;
+        for (int length = 1; length < best; length++) {
+            if (scores[length] >= SCORE_TOLERANCE * scores[best]) {
+                keyLength = length;
+                break;
+            }
+        }
+        
+        return new Result(solveColumns(statistics, keyLength), coincidence, kasiski);
+    }
+    
+    private String solveColumns(VigenereStatistics statistics, int keyLength) {
+        int[] shifts;
+        try {
+            shifts = pool.submit(() -> IntStream.range(0, keyLength)
+                    .parallel()
+                    .map(column -> CaesarBreaker.bestShift(statistics.columnHistogram(keyLength, column)))
+                    .toArray()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving key columns", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to solve key columns", e.getCause());
+        }
+        
+        char[] key = new char[keyLength];
+        for (int column = 0; column < keyLength; column++) {
+            key[column] = (char) ('A' + shifts[column]);
+        }
+        return new String(key);
+    }
+    
+    public static class Result {
+        private final String key;
+        private final double[] coincidence;
+        private final long[] kasiski;
+        
+        Result(String key, double[] coincidence, long[] kasiski) {
+            this.key = key;
+            this.coincidence = coincidence;
+            this.kasiski = kasiski;
+        }
+        
+        public String getKey() {
+            return key;
+        }
+        
+        public int getKeyLength() {
+            return key.length();
+        }
+        
+        public int getMaxEvaluatedKeyLength() {
+            return coincidence.length - 1;
+        }
+        
+        public double getIndexOfCoincidence(int keyLength) {
+            return coincidence[keyLength];
+        }
+        
+        public long getKasiskiCount(int keyLength) {
+            return kasiski[keyLength];
+        }
+        
+        public CipherResult decrypt(String ciphertext) {
+            return new VigenereCipher().decrypt(ciphertext, key);
+        }
+    }
+    
+    private class StatisticsTask extends RecursiveTask<VigenereStatistics> {
+        private static final long serialVersionUID = 1L;
+        
+        private final CharSequence text;
+        private final int from;
+        private final int to;
+        
+        StatisticsTask(CharSequence text, int from, int to) {
+            this.text = text;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected VigenereStatistics compute() {
+            if (to - from <= CHUNK_SIZE) {
+                VigenereStatistics statistics = new VigenereStatistics(maxKeyLength);
+                statistics.accept(text, from, to);
+                return statistics;
+            }
+            
+            int mid = (from + to) >>> 1;
+            StatisticsTask right = new StatisticsTask(text, mid, to);
+            right.fork();
+            VigenereStatistics statistics = new StatisticsTask(text, from, mid).compute();
+            statistics.merge(right.join());
+            return statistics;
+        }
+    }
+}
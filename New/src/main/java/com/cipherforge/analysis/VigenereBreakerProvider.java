@@ -0,0 +1,13 @@
+package com.cipherforge.analysis;
+
+public class VigenereBreakerProvider implements BreakerProvider {
+    @Override
+    public String getAlgorithm() {
+        return "Vigenere Cipher";
+    }
+    
+    @Override
+    public KeyBreaker createBreaker() {
+        return new VigenereBreaker();
+    }
+}
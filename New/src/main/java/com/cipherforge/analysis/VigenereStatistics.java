@@ -0,0 +1,157 @@
+package com.cipherforge.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Letter statistics for Vigenere key-length analysis, gathered in a single
+ * streaming pass. For every candidate key length L it keeps one 26-entry
+ * histogram per column (letter index mod L), and for Kasiski examination it
+ * records the distances between consecutive repeats of each trigram.
+ * Everything lives in flat int[] arrays.
+ */
+public class VigenereStatistics {
+    public static final int MAX_KASISKI_DISTANCE = 1 << 16;
+    
+    private static final int TRIGRAMS = 26 * 26 * 26;
+    
+    private final int maxKeyLength;
+    private final int[] bases;
+    private final int[] histograms;
+    private final int[] columnOffsets;
+    private final int[] lastSeen;
+    private final int[] distances;
+    private long letters;
+    private int trigram;
+    
+    public VigenereStatistics(int maxKeyLength) {
+        if (maxKeyLength < 1) {
+            throw new IllegalArgumentException("Maximum key length must be at least 1: " + maxKeyLength);
+        }
+        
+        this.maxKeyLength = maxKeyLength;
+        this.bases = new int[maxKeyLength + 1];
+        this.columnOffsets = new int[maxKeyLength + 1];
+        
+        int size = 0;
+        for (int length = 1; length <= maxKeyLength; length++) {
+            bases[length] = size;
+            size += length * 26;
+        }
+        
+        this.histograms = new int[size];
+        this.lastSeen = new int[TRIGRAMS];
+        this.distances = new int[MAX_KASISKI_DISTANCE + 1];
+        Arrays.fill(lastSeen, -1);
+    }
+    
+    public int getMaxKeyLength() {
+        return maxKeyLength;
+    }
+    
+    public long getLetterCount() {
+        return letters;
+    }
+    
+    public void accept(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int letter = LetterFrequencies.letterIndex(text.charAt(i));
+            if (letter >= 0) {
+                acceptLetter(letter);
+            }
+        }
+    }
+    
+    public void accept(char[] buffer, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            int letter = LetterFrequencies.letterIndex(buffer[i]);
+            if (letter >= 0) {
+                acceptLetter(letter);
+            }
+        }
+    }
+    
+    private void acceptLetter(int letter) {
+        for (int length = 1; length <= maxKeyLength; length++) {
+            int offset = columnOffsets[length];
+            histograms[bases[length] + offset + letter]++;
+            offset += 26;
+            columnOffsets[length] = offset == length * 26 ? 0 : offset;
+        }
+        
+        trigram = (trigram * 26 + letter) % TRIGRAMS;
+        if (letters >= 2 && letters <= Integer.MAX_VALUE) {
+            int position = (int) letters;
+            int previous = lastSeen[trigram];
+            if (previous >= 0 && position - previous <= MAX_KASISKI_DISTANCE) {
+                distances[position - previous]++;
+            }
+            lastSeen[trigram] = position;
+        }
+        
+        letters++;
+    }
+    
+    /**
+     * Appends the statistics of the segment that immediately follows this one.
+     * Trigram repeats that straddle the boundary are not counted.
+     */
+    public void merge(VigenereStatistics next) {
+        if (next.maxKeyLength != maxKeyLength) {
+            throw new IllegalArgumentException("Cannot merge statistics with different maximum key lengths.");
+        }
+        
+        for (int length = 1; length <= maxKeyLength; length++) {
+            int shift = (int) (letters % length);
+            int base = bases[length];
+            
+            for (int column = 0; column < length; column++) {
+                int target = base + ((column + shift) % length) * 26;
+                int source = base + column * 26;
+                for (int letter = 0; letter < 26; letter++) {
+                    histograms[target + letter] += next.histograms[source + letter];
+                }
+            }
+        }
+        
+        for (int distance = 0; distance <= MAX_KASISKI_DISTANCE; distance++) {
+            distances[distance] += next.distances[distance];
+        }
+        
+        letters += next.letters;
+        for (int length = 1; length <= maxKeyLength; length++) {
+            columnOffsets[length] = (int) (letters % length) * 26;
+        }
+        Arrays.fill(lastSeen, -1);
+        trigram = 0;
+    }
+    
+    public int[] columnHistogram(int keyLength, int column) {
+        int[] histogram = new int[26];
+        System.arraycopy(histograms, bases[keyLength] + column * 26, histogram, 0, 26);
+        return histogram;
+    }
+    
+    /**
+     * Mean index of coincidence of the columns for the given key length.
+     */
+    public double averageIndexOfCoincidence(int keyLength) {
+        double sum = 0.0;
+        for (int column = 0; column < keyLength; column++) {
+            sum += LetterFrequencies.indexOfCoincidence(columnHistogram(keyLength, column));
+        }
+        return sum / keyLength;
+    }
+    
+    /**
+     * Number of recorded trigram repeat distances that are multiples of the
+     * given key length.
+     */
+    public long kasiskiCount(int keyLength) {
+        long count = 0;
+        for (int distance = keyLength; distance <= MAX_KASISKI_DISTANCE; distance += keyLength) {
+            count += distances[distance];
+        }
+        return count;
+    }
+}
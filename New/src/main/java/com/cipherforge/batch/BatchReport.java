@@ -0,0 +1,62 @@
+package com.cipherforge.batch;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Outcome of a directory job: how many files and bytes were written, how long
+ * it took, and the reason each failed file was skipped.
+ */
+public class BatchReport {
+    private final long files;
+    private final long bytes;
+    private final long elapsedNanos;
+    private final Map<Path, String> failures;
+    
+    public BatchReport(long files, long bytes, long elapsedNanos, Map<Path, String> failures) {
+        this.files = files;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+    
+    public long getFiles() {
+        return files;
+    }
+    
+    public long getBytes() {
+        return bytes;
+    }
+    
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+    
+    public Map<Path, String> getFailures() {
+        return failures;
+    }
+    
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+    
+    public double getFilesPerSecond() {
+        return rate(files, elapsedNanos);
+    }
+    
+    public double getMegabytesPerSecond() {
+        return rate(bytes, elapsedNanos) / (1024 * 1024);
+    }
+    
+    static double rate(long count, long nanos) {
+        return nanos > 0 ? count * 1e9 / nanos : 0.0;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%d files, %.1f MB in %.2f s (%.1f files/s, %.1f MB/s), %d failed",
+                files, bytes / (1024.0 * 1024.0), elapsedNanos / 1e9,
+                getFilesPerSecond(), getMegabytesPerSecond(), failures.size());
+    }
+}
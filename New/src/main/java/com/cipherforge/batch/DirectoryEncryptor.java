@@ -0,0 +1,313 @@
+package com.cipherforge.batch;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.cipherforge.core.ByteKey;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.core.SubstitutionTable;
+import com.cipherforge.metrics.AlgorithmMetrics;
+import com.cipherforge.metrics.CipherMetrics;
+import com.cipherforge.parallel.IoExecutors;
+import com.cipherforge.parallel.ParallelEncryptor;
+
+/**
+ * Encrypts every regular file under a source directory into a mirrored target
+ * tree. Each file is read and written on an I/O thread (virtual where the
+ * runtime has them) while the cipher work runs on a work-stealing ForkJoinPool.
+ * At most maxOpenFiles files are in flight at once, which bounds both open
+ * descriptors and buffered memory. Output is written to a temp file in the
+ * target directory and renamed into place, so readers never see a partial file.
+ * With a ByteKey files are shifted as raw bytes and never decoded as text.
+ */
+public class DirectoryEncryptor {
+    public static final int DEFAULT_MAX_OPEN_FILES = 64;
+    public static final int IN_MEMORY_LIMIT = 1024 * 1024;
+    
+    private final CompiledKey key;
+    private final ByteKey byteKey;
+    private final ForkJoinPool cpuPool;
+    private final int maxOpenFiles;
+    private final AlgorithmMetrics metrics;
+    
+    public DirectoryEncryptor(CompiledKey key) {
+        this(key, ForkJoinPool.commonPool(), DEFAULT_MAX_OPEN_FILES);
+    }
+    
+    public DirectoryEncryptor(CompiledKey key, ForkJoinPool cpuPool, int maxOpenFiles) {
+        this(key, null, key.getAlgorithm(), cpuPool, maxOpenFiles);
+    }
+    
+    public DirectoryEncryptor(ByteKey key) {
+        this(key, ForkJoinPool.commonPool(), DEFAULT_MAX_OPEN_FILES);
+    }
+    
+    public DirectoryEncryptor(ByteKey key, ForkJoinPool cpuPool, int maxOpenFiles) {
+        this(null, key, key.getAlgorithm(), cpuPool, maxOpenFiles);
+    }
+    
+    private DirectoryEncryptor(CompiledKey key, ByteKey byteKey, String algorithm, ForkJoinPool cpuPool,
+            int maxOpenFiles) {
+        if (maxOpenFiles <= 0) {
+            throw new IllegalArgumentException("Max open files must be positive: " + maxOpenFiles);
+        }
+        this.key = key;
+        this.byteKey = byteKey;
+        this.cpuPool = cpuPool;
+        this.maxOpenFiles = maxOpenFiles;
+        this.metrics = CipherMetrics.getDefault().forAlgorithm(algorithm);
+    }
+    
+    public BatchReport run(Path source, Path target) throws IOException {
+        return run(source, target, null, 0);
+    }
+    
+    /**
+     * Encrypts source into target, printing a progress line to progress every
+     * intervalMillis while the job runs (pass null to disable). Files that fail
+     * are recorded in the report and do not stop the job.
+     */
+    public BatchReport run(Path source, Path target, PrintStream progress, long intervalMillis) throws IOException {
+        final Path sourceRoot = source.toAbsolutePath().normalize();
+        final Path targetRoot = target.toAbsolutePath().normalize();
+        
+        if (!Files.isDirectory(sourceRoot)) {
+            throw new IOException("Not a directory: " + source);
+        }
+        if (targetRoot.startsWith(sourceRoot)) {
+            throw new IllegalArgumentException("Target directory must not be inside the source directory.");
+        }
+        
+        final Job job = new Job(maxOpenFiles);
+        ExecutorService io = IoExecutors.newIoExecutor("cipherforge-batch-io", maxOpenFiles);
+        ScheduledExecutorService reporter = null;
+        
+        if (progress != null && intervalMillis > 0) {
+            final PrintStream out = progress;
+            reporter = Executors.newSingleThreadScheduledExecutor(IoExecutors.daemonThreads("cipherforge-batch-progress"));
+            reporter.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    out.println(job.progressLine());
+                }
+            }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        
+        try {
+            walk(sourceRoot, targetRoot, job, io);
+            job.permits.acquire(maxOpenFiles);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while encrypting " + source);
+        } finally {
+            io.shutdown();
+            if (reporter != null) {
+                reporter.shutdownNow();
+            }
+        }
+        
+        return job.report();
+    }
+    
+    private void walk(final Path sourceRoot, final Path targetRoot, final Job job, final ExecutorService io)
+            throws IOException, InterruptedException {
+        try {
+            Files.walkFileTree(sourceRoot, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, BasicFileAttributes attributes) {
+                    if (!attributes.isRegularFile()) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    
+                    final Path output = targetRoot.resolve(sourceRoot.relativize(file).toString());
+                    try {
+                        job.permits.acquire();
+                    } catch (InterruptedException e) {
+                        throw new WalkInterrupted(e);
+                    }
+                    
+                    io.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                job.completed(encryptFile(file, output));
+                            } catch (IOException | RuntimeException e) {
+                                job.failed(file, e);
+                            } finally {
+                                job.permits.release();
+                            }
+                        }
+                    });
+                    return FileVisitResult.CONTINUE;
+                }
+                
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    job.failed(file, e);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (WalkInterrupted e) {
+            throw (InterruptedException) e.getCause();
+        }
+    }
+    
+    /**
+     * Encrypts one file into a temp file next to output and renames it into
+     * place. Returns the number of input bytes processed.
+     */
+    private long encryptFile(Path input, Path output) throws IOException {
+        Path directory = output.getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "." + output.getFileName(), ".tmp");
+        
+        try {
+            long size = Files.size(input);
+            if (byteKey != null) {
+                streamBytes(input, temp);
+            } else if (size <= IN_MEMORY_LIMIT) {
+                Files.write(temp, transform(Files.readAllBytes(input)));
+            } else {
+                stream(input, temp);
+            }
+            Files.move(temp, output, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return size;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    private byte[] transform(final byte[] data) throws CharacterCodingException {
+        long start = metrics.startBulk();
+        if (SubstitutionTable.isAscii(data, 0, data.length)) {
+            cpuPool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    key.apply(data, 0, data.length, 0);
+                }
+            }).join();
+            metrics.recordBytes(data.length, start);
+            return data;
+        }
+        
+        final CharBuffer chars = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(data));
+        cpuPool.submit(new Runnable() {
+            @Override
+            public void run() {
+                key.apply(chars.array(), chars.arrayOffset(), chars.remaining(), 0);
+            }
+        }).join();
+        
+        metrics.recordBytes(data.length, start);
+        
+        ByteBuffer encoded = StandardCharsets.UTF_8.newEncoder().encode(chars);
+        byte[] result = new byte[encoded.remaining()];
+        encoded.get(result);
+        return result;
+    }
+    
+    private void stream(Path input, Path output) throws IOException {
+        try (Reader reader = Channels.newReader(FileChannel.open(input, StandardOpenOption.READ),
+                     StandardCharsets.UTF_8.newDecoder(), ParallelEncryptor.DEFAULT_CHUNK_SIZE);
+             Writer writer = Channels.newWriter(FileChannel.open(output, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING), StandardCharsets.UTF_8.newEncoder(),
+                     ParallelEncryptor.DEFAULT_CHUNK_SIZE)) {
+            new ParallelEncryptor(cpuPool, ParallelEncryptor.DEFAULT_CHUNK_SIZE).encrypt(reader, writer, key);
+        }
+    }
+    
+    /**
+     * Shifts input into output as raw bytes through one direct buffer; no
+     * charset work, so there is nothing to gain from the in-memory path.
+     */
+    private void streamBytes(Path input, Path output) throws IOException {
+        long start = metrics.startBulk();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(ParallelEncryptor.DEFAULT_CHUNK_SIZE);
+        long total = 0;
+        int keyIndex = 0;
+        
+        try (FileChannel source = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(output, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                keyIndex = byteKey.apply(buffer, keyIndex);
+                total += buffer.remaining();
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+        metrics.recordBytes(total, start);
+    }
+    
+    private static final class Job {
+        final Semaphore permits;
+        final LongAdder files = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final Map<Path, String> failures = new ConcurrentSkipListMap<Path, String>();
+        final long startNanos = System.nanoTime();
+        
+        Job(int maxOpenFiles) {
+            permits = new Semaphore(maxOpenFiles);
+        }
+        
+        void completed(long size) {
+            files.increment();
+            bytes.add(size);
+        }
+        
+        void failed(Path file, Exception e) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.reasonFor(e));
+            String reason = e instanceof CharacterCodingException ? "not valid UTF-8 text" : String.valueOf(e.getMessage());
+            failures.put(file, reason);
+        }
+        
+        String progressLine() {
+            long elapsed = System.nanoTime() - startNanos;
+            long done = files.sum();
+            long total = bytes.sum();
+            return String.format("%d files, %.1f MB (%.1f files/s, %.1f MB/s), %d failed",
+                    done, total / (1024.0 * 1024.0), BatchReport.rate(done, elapsed),
+                    BatchReport.rate(total, elapsed) / (1024 * 1024), failures.size());
+        }
+        
+        BatchReport report() {
+            return new BatchReport(files.sum(), bytes.sum(), System.nanoTime() - startNanos, failures);
+        }
+    }
+    
+    private static final class WalkInterrupted extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        
+        WalkInterrupted(InterruptedException cause) {
+            super(cause);
+        }
+    }
+}
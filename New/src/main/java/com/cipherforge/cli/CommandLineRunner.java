@@ -0,0 +1,622 @@
+package com.cipherforge.cli;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import com.cipherforge.analysis.DictionaryAttack;
+import com.cipherforge.analysis.BreakerRegistry;
+import com.cipherforge.analysis.KeyBreaker;
+import com.cipherforge.batch.BatchReport;
+import com.cipherforge.batch.DirectoryEncryptor;
+import com.cipherforge.core.ByteCipher;
+import com.cipherforge.core.ByteKey;
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.core.KeyCache;
+import com.cipherforge.io.CheckpointedFileEncryptor;
+import com.cipherforge.io.CipherContainer;
+import com.cipherforge.io.MappedFileEncryptor;
+import com.cipherforge.metrics.CipherMetrics;
+import com.cipherforge.metrics.MetricsReporter;
+import com.cipherforge.parallel.ParallelEncryptor;
+import com.cipherforge.registry.CipherRegistry;
+import com.cipherforge.server.CipherServer;
+
+/**
+ * Non-interactive mode for shell pipelines and scheduled jobs. Input is
+ * streamed through UTF-8 channel readers and writers with no prompts and no
+ * length limit; the process exit code reports the outcome. Byte ciphers skip
+ * the charset layer and move raw bytes between the channels.
+ */
+public class CommandLineRunner {
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILURE = 1;
+    public static final int EXIT_USAGE = 2;
+    public static final int EXIT_INVALID_KEY = 3;
+    
+    private static final int DEFAULT_METRICS_INTERVAL = 60;
+    
+    private static final String STDIO = "-";
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+    
+    private final PrintStream err;
+    private final long mainStartNanos;
+    
+    private String algorithm;
+    private String key;
+    private String input = STDIO;
+    private String output = STDIO;
+    private boolean decrypt;
+    private boolean crack;
+    private String wordlist;
+    private int top = DictionaryAttack.DEFAULT_TOP_K;
+    private boolean parallel;
+    private boolean mapped;
+    private boolean inPlace;
+    private boolean checkpoint;
+    private long checkpointInterval = CheckpointedFileEncryptor.DEFAULT_CHECKPOINT_INTERVAL;
+    private boolean container;
+    private boolean timing;
+    private int bufferSize = CipherAlgorithm.DEFAULT_BUFFER_SIZE;
+    private boolean serve;
+    private String host = "127.0.0.1";
+    private int port = CipherServer.DEFAULT_PORT;
+    private int maxConcurrency = CipherServer.DEFAULT_MAX_CONCURRENCY;
+    private MetricsReporter.Format metricsFormat;
+    private int metricsInterval = DEFAULT_METRICS_INTERVAL;
+    private volatile long firstWriteNanos;
+    
+    public CommandLineRunner(PrintStream err, long mainStartNanos) {
+        this.err = err;
+        this.mainStartNanos = mainStartNanos;
+    }
+    
+    public static boolean isCommandLine(String[] args) {
+        return args != null && args.length > 0;
+    }
+    
+    public int run(String[] args) {
+        try {
+            if (!parse(args)) {
+                printUsage();
+                return EXIT_OK;
+            }
+        } catch (IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            printUsage();
+            return EXIT_USAGE;
+        }
+        
+        if (serve) {
+            return serve();
+        }
+        
+        try {
+            if (isSameFile(input, output)) {
+                err.println("Error: --input and --output are the same file; use --in-place to overwrite it.");
+                return EXIT_USAGE;
+            }
+        } catch (IOException e) {
+            err.println("Error: " + e.getMessage());
+            return EXIT_FAILURE;
+        }
+        
+        CipherRegistry registry = new CipherRegistry();
+        CipherAlgorithm cipher = registry.findCipher(algorithm);
+        if (cipher == null) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.UNKNOWN_ALGORITHM);
+            err.println("Error: Unknown algorithm '" + algorithm + "'.");
+            return EXIT_USAGE;
+        }
+        
+        try {
+            int status = crack ? crack(cipher) : transform(cipher);
+            if (timing && status == EXIT_OK) {
+                reportTiming();
+            }
+            if (metricsFormat != null) {
+                new MetricsReporter(CipherMetrics.getDefault(), err, metricsFormat).report();
+            }
+            return status;
+        } catch (CharacterCodingException e) {
+            err.println("Error: Input is not valid UTF-8 text.");
+            return EXIT_FAILURE;
+        } catch (IOException e) {
+            err.println("Error: " + e.getMessage());
+            return EXIT_FAILURE;
+        } catch (RuntimeException e) {
+            err.println("Unexpected Error: " + e);
+            return EXIT_FAILURE;
+        }
+    }
+    
+    private boolean parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            
+            switch (arg) {
+                case "-a":
+                case "--algorithm":
+                    algorithm = value(args, ++i, arg);
+                    break;
+                    
+                case "-k":
+                case "--key":
+                    key = value(args, ++i, arg);
+                    break;
+                    
+                case "-i":
+                case "--input":
+                    input = value(args, ++i, arg);
+                    break;
+                    
+                case "-o":
+                case "--output":
+                    output = value(args, ++i, arg);
+                    break;
+                    
+                case "-d":
+                case "--decrypt":
+                    decrypt = true;
+                    break;
+                    
+                case "--crack":
+                    crack = true;
+                    break;
+                    
+                case "--wordlist":
+                    wordlist = value(args, ++i, arg);
+                    break;
+                    
+                case "--top":
+                    top = parsePositive(value(args, ++i, arg), "Top");
+                    break;
+                    
+                case "-p":
+                case "--parallel":
+                    parallel = true;
+                    break;
+                    
+                case "--mmap":
+                    mapped = true;
+                    break;
+                    
+                case "--in-place":
+                    inPlace = true;
+                    break;
+                    
+                case "--checkpoint":
+                    checkpoint = true;
+                    break;
+                    
+                case "--container":
+                    container = true;
+                    break;
+                    
+                case "--checkpoint-interval":
+                    checkpointInterval = parsePositive(value(args, ++i, arg), "Checkpoint interval") * 1024L * 1024;
+                    break;
+                    
+                case "--timing":
+                    timing = true;
+                    break;
+                    
+                case "--buffer-size":
+                    bufferSize = parsePositive(value(args, ++i, arg), "Buffer size");
+                    break;
+                    
+                case "--serve":
+                    serve = true;
+                    break;
+                    
+                case "--host":
+                    host = value(args, ++i, arg);
+                    break;
+                    
+                case "--port":
+                    port = parsePositive(value(args, ++i, arg), "Port");
+                    break;
+                    
+                case "--max-concurrency":
+                    maxConcurrency = parsePositive(value(args, ++i, arg), "Max concurrency");
+                    break;
+                    
+                case "--metrics":
+                    metricsFormat = MetricsReporter.Format.parse(value(args, ++i, arg));
+                    break;
+                    
+                case "--metrics-interval":
+                    metricsInterval = parsePositive(value(args, ++i, arg), "Metrics interval");
+                    break;
+                    
+                case "-h":
+                case "--help":
+                    return false;
+                    
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        
+        if (serve) {
+            return true;
+        }
+        if (algorithm == null) {
+            throw new IllegalArgumentException("Missing --algorithm.");
+        }
+        if (key == null && !crack) {
+            throw new IllegalArgumentException("Missing --key.");
+        }
+        if (crack && (key != null || decrypt)) {
+            throw new IllegalArgumentException("--crack cannot be combined with --key or --decrypt.");
+        }
+        if (wordlist != null && !crack) {
+            throw new IllegalArgumentException("--wordlist needs --crack.");
+        }
+        if ((mapped || inPlace) && STDIO.equals(input)) {
+            throw new IllegalArgumentException("--mmap and --in-place need an --input file.");
+        }
+        if (mapped && STDIO.equals(output)) {
+            throw new IllegalArgumentException("--mmap needs an --output file; use --in-place to overwrite the input.");
+        }
+        if (inPlace && !STDIO.equals(output)) {
+            throw new IllegalArgumentException("--in-place cannot be combined with --output.");
+        }
+        if (checkpoint && (STDIO.equals(input) || STDIO.equals(output))) {
+            throw new IllegalArgumentException("--checkpoint needs --input and --output files.");
+        }
+        if (checkpoint && (mapped || inPlace || parallel || crack)) {
+            throw new IllegalArgumentException(
+                    "--checkpoint cannot be combined with --mmap, --in-place, --parallel or --crack.");
+        }
+        if (container && (STDIO.equals(input) || STDIO.equals(output))) {
+            throw new IllegalArgumentException("--container needs --input and --output files.");
+        }
+        if (container && (mapped || inPlace || parallel || crack || checkpoint)) {
+            throw new IllegalArgumentException(
+                    "--container cannot be combined with --mmap, --in-place, --parallel, --crack or --checkpoint.");
+        }
+        return true;
+    }
+    
+    private int serve() {
+        try {
+            CipherServer server = new CipherServer(new CipherRegistry(), new InetSocketAddress(host, port), maxConcurrency);
+            server.start();
+            err.println("Serving on http://" + host + ":" + server.getAddress().getPort()
+                    + " (max " + maxConcurrency + " concurrent requests)");
+            if (metricsFormat != null) {
+                new MetricsReporter(CipherMetrics.getDefault(), err, metricsFormat).start(metricsInterval * 1000L);
+            }
+            Thread.currentThread().join();
+            return EXIT_OK;
+        } catch (IOException e) {
+            err.println("Error: Cannot start server: " + e.getMessage());
+            return EXIT_FAILURE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return EXIT_OK;
+        }
+    }
+    
+    private int transform(CipherAlgorithm cipher) throws IOException {
+        if (cipher instanceof ByteCipher) {
+            return transformBytes(cipher, (ByteCipher) cipher);
+        }
+        
+        CompiledKey compiled = KeyCache.getDefault().get(cipher, key);
+        if (compiled == null) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+            err.println("Error: Invalid key for " + cipher.getName() + ".");
+            return EXIT_INVALID_KEY;
+        }
+        
+        CompiledKey direction = decrypt ? compiled.inverse() : compiled;
+        
+        if (!STDIO.equals(input) && Files.isDirectory(Paths.get(input))) {
+            return transformDirectory(new DirectoryEncryptor(direction));
+        }
+        if (container) {
+            if (decrypt) {
+                new CipherContainer().decrypt(Paths.get(input), Paths.get(output), compiled);
+            } else {
+                new CipherContainer().encrypt(Paths.get(input), Paths.get(output), compiled);
+            }
+            return EXIT_OK;
+        }
+        if (checkpoint) {
+            new CheckpointedFileEncryptor(checkpointInterval).encrypt(Paths.get(input), Paths.get(output), direction);
+            return EXIT_OK;
+        }
+        if (inPlace) {
+            new MappedFileEncryptor().encryptInPlace(Paths.get(input), direction);
+            return EXIT_OK;
+        }
+        if (mapped) {
+            new MappedFileEncryptor().encrypt(Paths.get(input), Paths.get(output), direction);
+            return EXIT_OK;
+        }
+        
+        try (Reader reader = openReader(); Writer writer = openWriter()) {
+            if (parallel) {
+                new ParallelEncryptor().encrypt(reader, writer, direction);
+            } else {
+                cipher.encrypt(reader, writer, direction, bufferSize);
+            }
+        }
+        return EXIT_OK;
+    }
+    
+    private int transformBytes(CipherAlgorithm cipher, ByteCipher byteCipher) throws IOException {
+        ByteKey compiled = byteCipher.compileByteKey(key);
+        if (compiled == null) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+            err.println("Error: Invalid key for " + cipher.getName() + ".");
+            return EXIT_INVALID_KEY;
+        }
+        
+        ByteKey direction = decrypt ? compiled.inverse() : compiled;
+        
+        if (!STDIO.equals(input) && Files.isDirectory(Paths.get(input))) {
+            return transformDirectory(new DirectoryEncryptor(direction));
+        }
+        if (container) {
+            if (decrypt) {
+                new CipherContainer().decrypt(Paths.get(input), Paths.get(output), compiled);
+            } else {
+                new CipherContainer().encrypt(Paths.get(input), Paths.get(output), compiled);
+            }
+            return EXIT_OK;
+        }
+        if (checkpoint) {
+            new CheckpointedFileEncryptor(checkpointInterval).encrypt(Paths.get(input), Paths.get(output), direction);
+            return EXIT_OK;
+        }
+        if (inPlace) {
+            new MappedFileEncryptor().encryptInPlace(Paths.get(input), direction);
+            return EXIT_OK;
+        }
+        if (mapped) {
+            new MappedFileEncryptor().encrypt(Paths.get(input), Paths.get(output), direction);
+            return EXIT_OK;
+        }
+        
+        try (ReadableByteChannel source = openInput();
+             WritableByteChannel target = new FirstWriteChannel(openOutput())) {
+            byteCipher.encrypt(source, target, direction, bufferSize);
+        }
+        return EXIT_OK;
+    }
+    
+    private int transformDirectory(DirectoryEncryptor encryptor) throws IOException {
+        if (STDIO.equals(output)) {
+            err.println("Error: --output must name a directory when --input is a directory.");
+            return EXIT_USAGE;
+        }
+        if (checkpoint || container) {
+            err.println("Error: --checkpoint and --container work on single files, not directories.");
+            return EXIT_USAGE;
+        }
+        
+        BatchReport report;
+        try {
+            report = encryptor.run(Paths.get(input), Paths.get(output), err, PROGRESS_INTERVAL_MILLIS);
+        } catch (IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            return EXIT_USAGE;
+        }
+        
+        for (Map.Entry<Path, String> failure : report.getFailures().entrySet()) {
+            err.println("Failed: " + failure.getKey() + ": " + failure.getValue());
+        }
+        err.println(report);
+        return report.isSuccessful() ? EXIT_OK : EXIT_FAILURE;
+    }
+    
+    /**
+     * Recovers the key with the breaker registered for the cipher and writes
+     * the decrypted text.
+     */
+    private int crack(CipherAlgorithm cipher) throws IOException {
+        String name = cipher.getName();
+        KeyBreaker breaker = new BreakerRegistry().createBreaker(name);
+        if (breaker == null) {
+            err.println("Error: --crack is not supported for " + name + ".");
+            return EXIT_USAGE;
+        }
+        if (wordlist != null) {
+            breaker = breaker.withWordlist(Paths.get(wordlist), top);
+            if (breaker == null) {
+                err.println("Error: --wordlist is not supported for " + name + ".");
+                return EXIT_USAGE;
+            }
+        }
+        
+        StringBuilder text = readAll();
+        String recovered = breaker.recoverKey(text, err);
+        if (recovered == null) {
+            err.println("Error: Could not recover a key.");
+            return EXIT_FAILURE;
+        }
+        
+        writeDecrypted(cipher, text, recovered);
+        err.println("Recovered key: " + recovered);
+        return EXIT_OK;
+    }
+    
+    private void writeDecrypted(CipherAlgorithm cipher, StringBuilder text, String recovered) throws IOException {
+        CompiledKey inverse = KeyCache.getDefault().get(cipher, recovered).inverse();
+        char[] buffer = new char[bufferSize];
+        
+        try (Writer writer = openWriter()) {
+            int keyIndex = 0;
+            for (int start = 0; start < text.length(); start += buffer.length) {
+                int count = Math.min(buffer.length, text.length() - start);
+                text.getChars(start, start + count, buffer, 0);
+                keyIndex = inverse.apply(buffer, 0, count, keyIndex);
+                writer.write(buffer, 0, count);
+            }
+        }
+    }
+    
+    private StringBuilder readAll() throws IOException {
+        StringBuilder text = new StringBuilder();
+        char[] buffer = new char[bufferSize];
+        
+        try (Reader reader = openReader()) {
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                text.append(buffer, 0, read);
+            }
+        }
+        return text;
+    }
+    
+    private Reader openReader() throws IOException {
+        return Channels.newReader(openInput(), StandardCharsets.UTF_8.newDecoder(), bufferSize);
+    }
+    
+    private Writer openWriter() throws IOException {
+        return Channels.newWriter(new FirstWriteChannel(openOutput()), StandardCharsets.UTF_8.newEncoder(), bufferSize);
+    }
+    
+    /**
+     * True if both paths name the same existing file, e.g. through a link.
+     * Opening the output truncates it, which would destroy the input.
+     */
+    private static boolean isSameFile(String input, String output) throws IOException {
+        if (STDIO.equals(input) || STDIO.equals(output)) {
+            return false;
+        }
+        Path inputPath = Paths.get(input);
+        Path outputPath = Paths.get(output);
+        return Files.exists(inputPath) && Files.exists(outputPath) && Files.isSameFile(inputPath, outputPath);
+    }
+    
+    private ReadableByteChannel openInput() throws IOException {
+        return STDIO.equals(input)
+                ? new FileInputStream(FileDescriptor.in).getChannel()
+                : FileChannel.open(Paths.get(input), StandardOpenOption.READ);
+    }
+    
+    private WritableByteChannel openOutput() throws IOException {
+        return STDIO.equals(output)
+                ? new FileOutputStream(FileDescriptor.out).getChannel()
+                : FileChannel.open(Paths.get(output), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+    
+    private void reportTiming() {
+        long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+        long mainStartMillis = System.currentTimeMillis() - (System.nanoTime() - mainStartNanos) / 1_000_000;
+        long firstWrite = firstWriteNanos;
+        String firstByte = firstWrite == 0 ? "n/a" : String.format("%.2f ms", (firstWrite - mainStartNanos) / 1e6);
+        
+        err.printf("Timing: JVM start to main %d ms, main to first byte %s, total %.2f ms%n",
+                mainStartMillis - jvmStartMillis,
+                firstByte,
+                (System.nanoTime() - mainStartNanos) / 1e6);
+    }
+    
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option + ".");
+        }
+        return args[index];
+    }
+    
+    private static int parsePositive(String value, String what) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+        }
+        throw new IllegalArgumentException(what + " must be a positive integer: " + value);
+    }
+    
+    private void printUsage() {
+        err.println("Usage: cipher-forge --algorithm <id|name> --key <key> [options]");
+        err.println("       cipher-forge --algorithm <id|name> --crack [options]");
+        err.println("       cipher-forge --serve [--host <addr>] [--port <n>] [--max-concurrency <n>]");
+        err.println();
+        err.println("  -a, --algorithm <id|name>  Cipher id (1-5) or name (caesar, vigenere, byte-caesar,");
+        err.println("                             byte-vigenere, substitution); byte ciphers work on any file");
+        err.println("  -k, --key <key>            Encryption key");
+        err.println("  -d, --decrypt              Decrypt instead of encrypt");
+        err.println("      --crack                Recover the key and write the decrypted text");
+        err.println("      --wordlist <file>      With --crack, try each line as the key (Vigenere)");
+        err.println("      --top <k>              Keywords listed by --wordlist (default "
+                + DictionaryAttack.DEFAULT_TOP_K + ")");
+        err.println("  -i, --input <path|->       Input file or directory, or - for stdin (default)");
+        err.println("  -o, --output <path|->      Output file or directory, or - for stdout (default)");
+        err.println("      --mmap                 Encrypt through memory-mapped windows (ASCII text or byte ciphers)");
+        err.println("      --in-place             Encrypt the --input file in place (memory-mapped, as --mmap)");
+        err.println("      --checkpoint           Checkpoint a file job so a rerun resumes where it died");
+        err.println("      --checkpoint-interval <MB>  Input between checkpoints (default "
+                + CheckpointedFileEncryptor.DEFAULT_CHECKPOINT_INTERVAL / (1024 * 1024) + ")");
+        err.println("      --container            Write (or with -d, read) a chunked container with checksums");
+        err.println("  -p, --parallel             Process large inputs on all cores");
+        err.println("      --buffer-size <chars>  Streaming buffer size (default "
+                + CipherAlgorithm.DEFAULT_BUFFER_SIZE + ")");
+        err.println("      --timing               Report startup-to-first-byte time on stderr");
+        err.println("      --serve                Serve POST /encrypt and /decrypt over HTTP (key in "
+                + CipherServer.KEY_HEADER + ")");
+        err.println("      --host <addr>          Server bind address (default 127.0.0.1)");
+        err.println("      --port <n>             Server port (default " + CipherServer.DEFAULT_PORT + ")");
+        err.println("      --max-concurrency <n>  Requests processed at once (default "
+                + CipherServer.DEFAULT_MAX_CONCURRENCY + ")");
+        err.println("      --metrics <text|json>  Print operation metrics on stderr when done");
+        err.println("      --metrics-interval <s> With --serve, print metrics every s seconds (default "
+                + DEFAULT_METRICS_INTERVAL + ")");
+        err.println("  -h, --help                 Show this help");
+        err.println();
+        err.println("Exit codes: 0 success, 1 I/O or runtime failure, 2 usage error, 3 invalid key");
+    }
+    
+    private final class FirstWriteChannel implements WritableByteChannel {
+        private final WritableByteChannel delegate;
+        
+        FirstWriteChannel(WritableByteChannel delegate) {
+            this.delegate = delegate;
+        }
+        
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            if (firstWriteNanos == 0 && source.hasRemaining()) {
+                firstWriteNanos = System.nanoTime();
+            }
+            return delegate.write(source);
+        }
+        
+        @Override
+        public boolean isOpen() {
+            return delegate.isOpen();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.cipherforge.core;
+
+import java.util.BitSet;
+
+/**
+ * The output of encrypting many messages in one call, stored column-wise:
+ * every message's text sits back to back in one char array, and message i
+ * occupies [getOffsets()[i], getOffsets()[i + 1]). A message whose key was
+ * invalid is empty and reports isSuccess false, like a failed CipherResult.
+ */
+public final class BatchResult {
+    private final String algorithm;
+    private final char[] text;
+    private final int[] offsets;
+    private final BitSet failures;
+    
+    BatchResult(String algorithm, char[] text, int[] offsets, BitSet failures) {
+        this.algorithm = algorithm;
+        this.text = text;
+        this.offsets = offsets;
+        this.failures = failures;
+    }
+    
+    public String getAlgorithm() {
+        return algorithm;
+    }
+    
+    public int size() {
+        return offsets.length - 1;
+    }
+    
+    public boolean isSuccess(int index) {
+        checkIndex(index);
+        return !failures.get(index);
+    }
+    
+    public int getFailureCount() {
+        return failures.cardinality();
+    }
+    
+    public int getStart(int index) {
+        checkIndex(index);
+        return offsets[index];
+    }
+    
+    public int getLength(int index) {
+        checkIndex(index);
+        return offsets[index + 1] - offsets[index];
+    }
+    
+    /**
+     * Returns message index as a new String. Prefer getChars or the backing
+     * arrays when the text is only copied onwards.
+     */
+    public String get(int index) {
+        return new String(text, getStart(index), getLength(index));
+    }
+    
+    /**
+     * Copies message index into destination at destinationOffset and returns
+     * its length.
+     */
+    public int getChars(int index, char[] destination, int destinationOffset) {
+        int length = getLength(index);
+        System.arraycopy(text, offsets[index], destination, destinationOffset, length);
+        return length;
+    }
+    
+    /**
+     * The backing text of all messages. Not copied: callers must not modify it.
+     */
+    public char[] getText() {
+        return text;
+    }
+    
+    /**
+     * The size() + 1 message boundaries into getText(). Not copied: callers
+     * must not modify it.
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+    
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Message " + index + " of " + size());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.cipherforge.core;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Implemented by ciphers that work on raw bytes instead of letters. Such
+ * ciphers still extend CipherAlgorithm, whose String methods take UTF-8 text
+ * and produce Base64 ciphertext, but they have no letter shifts: keyShifts and
+ * compileKey return null, so the char-level methods report an invalid key
+ * instead of transforming anything. File and stream callers should check for
+ * this interface and move bytes straight through, with no charset decoding or
+ * encoding.
+ */
+public interface ByteCipher {
+    /**
+     * Returns the compiled keystream for key, or null if the key is invalid.
+     */
+    ByteKey compileByteKey(String key);
+    
+    /**
+     * Streams input through the cipher using one direct buffer of bufferSize
+     * bytes. Returns the number of bytes written.
+     */
+    long encrypt(ReadableByteChannel input, WritableByteChannel output, ByteKey key, int bufferSize)
+            throws IOException;
+}
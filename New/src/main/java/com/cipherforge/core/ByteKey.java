@@ -0,0 +1,123 @@
+package com.cipherforge.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A compiled mod-256 keystream for the byte ciphers. Every byte is shifted by
+ * the next keystream byte and advances the key, so arbitrary binary content
+ * round-trips exactly. Works on heap arrays and on heap, direct and mapped
+ * ByteBuffers alike; eight bytes are shifted per step with a carry-free
+ * (SWAR) add on one long.
+ */
+public final class ByteKey {
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    
+    private final String algorithm;
+    private final byte[] shifts;
+    private final long[] littleEndianLanes;
+    private final long[] bigEndianLanes;
+    private final int wordAdvance;
+    private volatile ByteKey inverse;
+    
+    public ByteKey(String algorithm, byte[] shifts) {
+        if (shifts == null || shifts.length == 0) {
+            throw new IllegalArgumentException("A byte key needs at least one shift.");
+        }
+        this.algorithm = algorithm;
+        this.shifts = shifts.clone();
+        
+        int period = shifts.length;
+        littleEndianLanes = new long[period];
+        bigEndianLanes = new long[period];
+        for (int k = 0; k < period; k++) {
+            long lane = 0;
+            for (int b = 0; b < 8; b++) {
+                lane |= (this.shifts[(k + b) % period] & 0xFFL) << (8 * b);
+            }
+            littleEndianLanes[k] = lane;
+            bigEndianLanes[k] = Long.reverseBytes(lane);
+        }
+        wordAdvance = 8 % period;
+    }
+    
+    public String getAlgorithm() {
+        return algorithm;
+    }
+    
+    public int getPeriod() {
+        return shifts.length;
+    }
+    
+    /**
+     * A 16-hex-digit digest of the algorithm and keystream. Equal keys have
+     * equal fingerprints. It does not contain the key, though a short key
+     * can be searched against it.
+     */
+    public String getFingerprint() {
+        return KeyFingerprint.of(algorithm, shifts);
+    }
+    
+    /**
+     * Returns the key that undoes this one. It is computed once and shared.
+     */
+    public ByteKey inverse() {
+        ByteKey result = inverse;
+        if (result == null) {
+            byte[] negated = new byte[shifts.length];
+            for (int i = 0; i < shifts.length; i++) {
+                negated[i] = (byte) -shifts[i];
+            }
+            result = new ByteKey(algorithm, negated);
+            result.inverse = this;
+            inverse = result;
+        }
+        return result;
+    }
+    
+    /**
+     * Encrypts buffer[offset, offset + length) in place starting at keyIndex and
+     * returns the key index for the next byte.
+     */
+    public int apply(byte[] buffer, int offset, int length, int keyIndex) {
+        ByteBuffer view = ByteBuffer.wrap(buffer).order(ByteOrder.nativeOrder());
+        return apply(view, offset, offset + length, keyIndex);
+    }
+    
+    /**
+     * Encrypts the remaining bytes of buffer in place starting at keyIndex and
+     * returns the key index for the next byte. The buffer's position and limit
+     * are left unchanged. Words are read in native byte order whatever the
+     * buffer's own order, which is fastest and does not change the result.
+     */
+    public int apply(ByteBuffer buffer, int keyIndex) {
+        if (buffer.order() != ByteOrder.nativeOrder()) {
+            buffer = buffer.duplicate().order(ByteOrder.nativeOrder());
+        }
+        return apply(buffer, buffer.position(), buffer.limit(), keyIndex);
+    }
+    
+    private int apply(ByteBuffer buffer, int start, int end, int keyIndex) {
+        long[] lanes = buffer.order() == ByteOrder.LITTLE_ENDIAN ? littleEndianLanes : bigEndianLanes;
+        int period = shifts.length;
+        int i = start;
+        
+        for (; i <= end - 8; i += 8) {
+            long word = buffer.getLong(i);
+            long lane = lanes[keyIndex];
+            buffer.putLong(i, ((word & LOW_BITS) + (lane & LOW_BITS)) ^ ((word ^ lane) & HIGH_BITS));
+            keyIndex += wordAdvance;
+            if (keyIndex >= period) {
+                keyIndex -= period;
+            }
+        }
+        
+        for (; i < end; i++) {
+            buffer.put(i, (byte) (buffer.get(i) + shifts[keyIndex]));
+            keyIndex = keyIndex + 1 == period ? 0 : keyIndex + 1;
+        }
+        
+        return keyIndex;
+    }
+}
@@ -1,15 +1,354 @@
 package com.cipherforge.core;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cipherforge.metrics.AlgorithmMetrics;
+import com.cipherforge.metrics.CipherMetrics;
+
+/**
+ * Base class for the ciphers. Instances are immutable: the registry hands the
+ * same instance to every caller, so encrypt, decrypt and the stream and batch
+ * methods may be called from any number of threads at once without locking.
+ * Per-call scratch space is thread-local and metrics are recorded per thread.
+ * Subclasses must keep this contract: no mutable fields, and nothing shared
+ * between calls except immutable tables.
+ */
 public abstract class CipherAlgorithm {
-    protected String name;
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+    public static final int INVALID_KEY = -1;
+    public static final int BUFFER_TOO_SMALL = -2;
+    
+    private static final ThreadLocal<char[]> SCRATCH = ThreadLocal.withInitial(() -> new char[DEFAULT_BUFFER_SIZE]);
+    
+    protected final String name;
+    
+    private final AlgorithmMetrics metrics;
     
     public CipherAlgorithm(String name) {
         this.name = name;
+        this.metrics = CipherMetrics.getDefault().forAlgorithm(name);
     }
     
     public String getName() {
         return name;
     }
     
+    /**
+     * Returns the counters this algorithm's operations are recorded in.
+     */
+    protected AlgorithmMetrics getMetrics() {
+        return metrics;
+    }
+    
     public abstract CipherResult encrypt(String plaintext, String key);
+    
+    /**
+     * Reverses encrypt. Letters outside A-Z and a-z are folded onto A-Z by
+     * encryption, so only ASCII letters round-trip exactly.
+     */
+    public abstract CipherResult decrypt(String ciphertext, String key);
+    
+    /**
+     * Returns the shift applied to each successive letter, cycling through the
+     * array, or null if the key is not valid for this algorithm.
+     */
+    public abstract int[] keyShifts(String key);
+    
+    /**
+     * Validates key and precomputes its shift tables, or returns null if the
+     * key is invalid or the cipher has no letter key (see ByteCipher).
+     * Callers encrypting repeatedly should prefer KeyCache.
+     */
+    public CompiledKey compileKey(String key) {
+        int[] shifts = keyShifts(key);
+        if (shifts == null) {
+            return null;
+        }
+        return new CompiledKey(name, shifts);
+    }
+    
+    /**
+     * Encrypts buffer[offset, offset + length) in place without allocating,
+     * starting at keyIndex. Returns the key index for the next letter, or
+     * INVALID_KEY if the key is not valid for this algorithm.
+     */
+    protected abstract int encryptInPlace(char[] buffer, int offset, int length, String key, int keyIndex);
+    
+    /**
+     * Encrypts input into output starting at outputOffset. Returns the number of
+     * characters written, INVALID_KEY or BUFFER_TOO_SMALL. Steady-state calls
+     * with a valid key allocate nothing.
+     */
+    public int encryptInto(CharSequence input, char[] output, int outputOffset, String key) {
+        int length = input.length();
+        if (outputOffset < 0 || outputOffset > output.length || output.length - outputOffset < length) {
+            return BUFFER_TOO_SMALL;
+        }
+        
+        long start = metrics.start();
+        copy(input, output, outputOffset);
+        
+        if (encryptInPlace(output, outputOffset, length, key, 0) == INVALID_KEY) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+            return INVALID_KEY;
+        }
+        metrics.recordChars(length, start);
+        return length;
+    }
+    
+    public int encryptInto(CharSequence input, char[] output, int outputOffset, CompiledKey key) {
+        int length = input.length();
+        if (outputOffset < 0 || outputOffset > output.length || output.length - outputOffset < length) {
+            return BUFFER_TOO_SMALL;
+        }
+        
+        long start = metrics.start();
+        copy(input, output, outputOffset);
+        key.apply(output, outputOffset, length, 0);
+        metrics.recordChars(length, start);
+        return length;
+    }
+    
+    /**
+     * Encrypts input into the remaining space of output and advances its
+     * position. Returns the number of characters written, INVALID_KEY or
+     * BUFFER_TOO_SMALL.
+     */
+    public int encryptInto(CharSequence input, CharBuffer output, String key) {
+        int length = input.length();
+        if (output.remaining() < length) {
+            return BUFFER_TOO_SMALL;
+        }
+        
+        int start = output.position();
+        
+        if (output.hasArray()) {
+            int written = encryptInto(input, output.array(), output.arrayOffset() + start, key);
+            if (written >= 0) {
+                output.position(start + written);
+            }
+            return written;
+        }
+        
+        long startNanos = metrics.start();
+        char[] scratch = SCRATCH.get();
+        int keyIndex = 0;
+        
+        for (int done = 0; done < length; ) {
+            int count = Math.min(scratch.length, length - done);
+            for (int i = 0; i < count; i++) {
+                scratch[i] = input.charAt(done + i);
+            }
+            
+            keyIndex = encryptInPlace(scratch, 0, count, key, keyIndex);
+            if (keyIndex == INVALID_KEY) {
+                output.position(start);
+                CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+                return INVALID_KEY;
+            }
+            
+            output.put(scratch, 0, count);
+            done += count;
+        }
+        
+        metrics.recordChars(length, startNanos);
+        return length;
+    }
+    
+    public long encrypt(Reader input, Writer output, String key) throws IOException {
+        return encrypt(input, output, key, DEFAULT_BUFFER_SIZE);
+    }
+    
+    /**
+     * Streams input through the cipher using a single buffer of bufferSize chars.
+     * Returns the number of characters written, or -1 if the key is invalid.
+     */
+    public long encrypt(Reader input, Writer output, String key, int bufferSize) throws IOException {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        
+        CompiledKey compiled = KeyCache.getDefault().get(this, key);
+        if (compiled == null) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+            return -1;
+        }
+        
+        return encrypt(input, output, compiled, bufferSize);
+    }
+    
+    public long encrypt(Reader input, Writer output, CompiledKey key, int bufferSize) throws IOException {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        
+        long start = metrics.startBulk();
+        char[] buffer = new char[bufferSize];
+        long total = 0;
+        int keyIndex = 0;
+        int read;
+        
+        try {
+            while ((read = input.read(buffer, 0, bufferSize)) != -1) {
+                keyIndex = key.apply(buffer, 0, read, keyIndex);
+                output.write(buffer, 0, read);
+                total += read;
+            }
+            
+            output.flush();
+        } catch (IOException e) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.reasonFor(e));
+            throw e;
+        }
+        
+        metrics.recordChars(total, start);
+        return total;
+    }
+    
+    public long decrypt(Reader input, Writer output, String key) throws IOException {
+        CompiledKey compiled = KeyCache.getDefault().get(this, key);
+        if (compiled == null) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+            return -1;
+        }
+        
+        return encrypt(input, output, compiled.inverse(), DEFAULT_BUFFER_SIZE);
+    }
+    
+    /**
+     * Encrypts each message on its own (each starts at the beginning of the
+     * key) in one call. The key is validated and compiled once and every
+     * message is encrypted directly into the shared output array, so the
+     * per-message cost is a copy and a table pass. If the key is invalid every
+     * message fails.
+     */
+    public BatchResult encryptBatch(List<? extends CharSequence> messages, String key) {
+        return transformBatch(messages, null, key, false);
+    }
+    
+    /**
+     * Like encryptBatch, with keys.get(i) for message i. Each distinct key is
+     * compiled once per batch; messages with an invalid key fail individually.
+     */
+    public BatchResult encryptBatch(List<? extends CharSequence> messages, List<String> keys) {
+        return transformBatch(messages, keys, null, false);
+    }
+    
+    public BatchResult decryptBatch(List<? extends CharSequence> messages, String key) {
+        return transformBatch(messages, null, key, true);
+    }
+    
+    public BatchResult decryptBatch(List<? extends CharSequence> messages, List<String> keys) {
+        return transformBatch(messages, keys, null, true);
+    }
+    
+    private BatchResult transformBatch(List<? extends CharSequence> messages, List<String> keys, String key,
+            boolean decrypt) {
+        int count = messages.size();
+        if (keys != null && keys.size() != count) {
+            throw new IllegalArgumentException("Expected one key per message: " + count + " messages, "
+                    + keys.size() + " keys.");
+        }
+        
+        long start = metrics.start();
+        CompiledKey[] messageKeys = new CompiledKey[count];
+        BitSet failures = new BitSet();
+        
+        if (keys == null) {
+            CompiledKey compiled = KeyCache.getDefault().get(this, key);
+            if (compiled != null) {
+                Arrays.fill(messageKeys, decrypt ? compiled.inverse() : compiled);
+            }
+        } else {
+            Map<String, CompiledKey> distinct = new HashMap<String, CompiledKey>();
+            String previous = null;
+            CompiledKey previousCompiled = null;
+            
+            for (int i = 0; i < count; i++) {
+                String messageKey = keys.get(i);
+                if (messageKey != previous) {
+                    previous = messageKey;
+                    previousCompiled = distinct.get(messageKey);
+                    if (previousCompiled == null && !distinct.containsKey(messageKey)) {
+                        CompiledKey compiled = KeyCache.getDefault().get(this, messageKey);
+                        previousCompiled = compiled == null ? null : decrypt ? compiled.inverse() : compiled;
+                        distinct.put(messageKey, previousCompiled);
+                    }
+                }
+                messageKeys[i] = previousCompiled;
+            }
+        }
+        
+        int[] offsets = new int[count + 1];
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            if (messageKeys[i] == null) {
+                failures.set(i);
+                CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+            } else {
+                total += messages.get(i).length();
+                if (total > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Batch exceeds " + Integer.MAX_VALUE + " chars.");
+                }
+            }
+            offsets[i + 1] = (int) total;
+        }
+        
+        char[] text = new char[(int) total];
+        for (int i = 0; i < count; i++) {
+            CompiledKey compiled = messageKeys[i];
+            if (compiled != null) {
+                copy(messages.get(i), text, offsets[i]);
+                compiled.apply(text, offsets[i], offsets[i + 1] - offsets[i], 0);
+            }
+        }
+        
+        if (total > 0) {
+            metrics.recordChars(total, start);
+        }
+        return new BatchResult(name, text, offsets, failures);
+    }
+    
+    /**
+     * Shifts the letters of buffer[offset, offset + length) in place, starting at
+     * keyIndex in the shift sequence. Returns the key index for the next letter.
+     */
+    public static int shiftLetters(char[] buffer, int offset, int length, int[] shifts, int keyIndex) {
+        int period = shifts.length;
+        int end = offset + length;
+        
+        for (int i = offset; i < end; i++) {
+            char ch = buffer[i];
+            
+            if (Character.isUpperCase(ch)) {
+                buffer[i] = (char) ('A' + Math.floorMod(ch - 'A' + shifts[keyIndex], 26));
+                keyIndex = keyIndex + 1 == period ? 0 : keyIndex + 1;
+            } else if (Character.isLowerCase(ch)) {
+                buffer[i] = (char) ('a' + Math.floorMod(ch - 'a' + shifts[keyIndex], 26));
+                keyIndex = keyIndex + 1 == period ? 0 : keyIndex + 1;
+            }
+        }
+        
+        return keyIndex;
+    }
+    
+    private static void copy(CharSequence input, char[] output, int outputOffset) {
+        int length = input.length();
+        
+        if (input instanceof String) {
+            ((String) input).getChars(0, length, output, outputOffset);
+        } else {
+            for (int i = 0; i < length; i++) {
+                output[outputOffset + i] = input.charAt(i);
+            }
+        }
+    }
 }
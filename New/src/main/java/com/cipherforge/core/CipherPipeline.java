@@ -0,0 +1,250 @@
+package com.cipherforge.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable chain of cipher stages, e.g. Caesar then Vigenere. Every stage
+ * shifts the n-th letter by some amount and leaves non-letters alone, so the
+ * chain is equivalent to a single shift sequence whose period is the least
+ * common multiple of the stage periods. That fused key runs the whole chain
+ * in one pass over one buffer. If the combined period would exceed
+ * MAX_FUSED_PERIOD the stages are instead applied one after another to each
+ * buffer, which still avoids intermediate strings. A chain with a letter
+ * permutation stage fuses into one permutation when every stage has period 1
+ * and runs stage by stage otherwise.
+ */
+public final class CipherPipeline {
+    public static final int MAX_FUSED_PERIOD = 1 << 20;
+    
+    private final List<Stage> stages;
+    private final CompiledKey fused;
+    
+    private CipherPipeline(List<Stage> stages) {
+        this.stages = Collections.unmodifiableList(stages);
+        this.fused = fuse(stages);
+    }
+    
+    /**
+     * Starts a pipeline with one encryption stage. Throws
+     * IllegalArgumentException if key is not valid for cipher.
+     */
+    public static CipherPipeline of(CipherAlgorithm cipher, String key) {
+        return new CipherPipeline(new ArrayList<Stage>()).then(cipher, key);
+    }
+    
+    /**
+     * Returns a new pipeline with an encryption stage appended.
+     */
+    public CipherPipeline then(CipherAlgorithm cipher, String key) {
+        return append(new Stage(cipher, key, false));
+    }
+    
+    /**
+     * Returns a new pipeline with a decryption stage appended.
+     */
+    public CipherPipeline thenDecrypt(CipherAlgorithm cipher, String key) {
+        return append(new Stage(cipher, key, true));
+    }
+    
+    public int getStageCount() {
+        return stages.size();
+    }
+    
+    public boolean isFused() {
+        return fused != null;
+    }
+    
+    /**
+     * Returns the single key equivalent to the whole pipeline, or null if its
+     * period exceeds MAX_FUSED_PERIOD or it mixes a permutation with a
+     * multi-letter key. It can be passed to anything that takes
+     * a CompiledKey, such as ParallelEncryptor or MappedFileEncryptor.
+     */
+    public CompiledKey getFusedKey() {
+        return fused;
+    }
+    
+    public CipherResult encrypt(String plaintext) {
+        char[] buffer = plaintext.toCharArray();
+        apply(buffer, buffer.length, false, new int[stages.size()]);
+        return new CipherResult(new String(buffer), getName(), getKey(), true);
+    }
+    
+    public CipherResult decrypt(String ciphertext) {
+        char[] buffer = ciphertext.toCharArray();
+        apply(buffer, buffer.length, true, new int[stages.size()]);
+        return new CipherResult(new String(buffer), getName(), getKey(), true);
+    }
+    
+    public long encrypt(Reader input, Writer output) throws IOException {
+        return transform(input, output, false);
+    }
+    
+    public long decrypt(Reader input, Writer output) throws IOException {
+        return transform(input, output, true);
+    }
+    
+    public String getName() {
+        return join(false);
+    }
+    
+    public String getKey() {
+        return join(true);
+    }
+    
+    private CipherPipeline append(Stage stage) {
+        List<Stage> next = new ArrayList<Stage>(stages);
+        next.add(stage);
+        return new CipherPipeline(next);
+    }
+    
+    private long transform(Reader input, Writer output, boolean inverse) throws IOException {
+        char[] buffer = new char[CipherAlgorithm.DEFAULT_BUFFER_SIZE];
+        int[] keyIndexes = new int[stages.size()];
+        long total = 0;
+        int read;
+        
+        while ((read = input.read(buffer, 0, buffer.length)) != -1) {
+            apply(buffer, read, inverse, keyIndexes);
+            output.write(buffer, 0, read);
+            total += read;
+        }
+        
+        output.flush();
+        return total;
+    }
+    
+    /**
+     * Transforms buffer[0, length) in place. keyIndexes holds the running key
+     * index: slot 0 for the fused key, or one slot per stage otherwise.
+     */
+    private void apply(char[] buffer, int length, boolean inverse, int[] keyIndexes) {
+        if (fused != null) {
+            CompiledKey key = inverse ? fused.inverse() : fused;
+            keyIndexes[0] = key.apply(buffer, 0, length, keyIndexes[0]);
+            return;
+        }
+        
+        int count = stages.size();
+        for (int i = 0; i < count; i++) {
+            int stage = inverse ? count - 1 - i : i;
+            CompiledKey key = stages.get(stage).key;
+            if (inverse) {
+                key = key.inverse();
+            }
+            keyIndexes[stage] = key.apply(buffer, 0, length, keyIndexes[stage]);
+        }
+    }
+    
+    private String join(boolean keys) {
+        StringBuilder joined = new StringBuilder();
+        for (Stage stage : stages) {
+            if (joined.length() > 0) {
+                joined.append(" -> ");
+            }
+            joined.append(keys ? stage.keyText : stage.cipher.getName());
+            if (!keys && stage.decrypt) {
+                joined.append(" (decrypt)");
+            }
+        }
+        return joined.toString();
+    }
+    
+    private static CompiledKey fuse(List<Stage> stages) {
+        if (stages.isEmpty()) {
+            return null;
+        }
+        if (stages.size() == 1) {
+            return stages.get(0).key;
+        }
+        
+        for (Stage stage : stages) {
+            if (stage.key.getAlphabet() != null) {
+                return fuseAlphabets(stages);
+            }
+        }
+        
+        long period = 1;
+        for (Stage stage : stages) {
+            period = lcm(period, stage.key.getPeriod());
+            if (period > MAX_FUSED_PERIOD) {
+                return null;
+            }
+        }
+        
+        int[] combined = new int[(int) period];
+        for (Stage stage : stages) {
+            int[] shifts = stage.key.getShifts();
+            for (int i = 0, k = 0; i < combined.length; i++) {
+                combined[i] += shifts[k];
+                k = k + 1 == shifts.length ? 0 : k + 1;
+            }
+        }
+        for (int i = 0; i < combined.length; i++) {
+            combined[i] = Math.floorMod(combined[i], 26);
+        }
+        
+        return new CompiledKey("Pipeline", combined);
+    }
+    
+    /**
+     * Composes period-1 stages into one permutation, a shift s being the
+     * permutation i -> i + s.
+     */
+    private static CompiledKey fuseAlphabets(List<Stage> stages) {
+        int[] combined = new int[26];
+        for (int i = 0; i < 26; i++) {
+            combined[i] = i;
+        }
+        
+        for (Stage stage : stages) {
+            if (stage.key.getPeriod() != 1) {
+                return null;
+            }
+            int[] alphabet = stage.key.getAlphabet();
+            int shift = alphabet == null ? stage.key.getShifts()[0] : 0;
+            for (int i = 0; i < 26; i++) {
+                combined[i] = alphabet != null ? alphabet[combined[i]] : (combined[i] + shift) % 26;
+            }
+        }
+        
+        return CompiledKey.forAlphabet("Pipeline", combined);
+    }
+    
+    private static long lcm(long a, long b) {
+        long x = a;
+        long y = b;
+        while (y != 0) {
+            long t = x % y;
+            x = y;
+            y = t;
+        }
+        return a / x * b;
+    }
+    
+    private static final class Stage {
+        final CipherAlgorithm cipher;
+        final String keyText;
+        final boolean decrypt;
+        final CompiledKey key;
+        
+        Stage(CipherAlgorithm cipher, String keyText, boolean decrypt) {
+            if (cipher instanceof ByteCipher) {
+                throw new IllegalArgumentException(cipher.getName() + " works on bytes and cannot be fused with letter ciphers.");
+            }
+            CompiledKey compiled = KeyCache.getDefault().get(cipher, keyText);
+            if (compiled == null) {
+                throw new IllegalArgumentException("Invalid key for " + cipher.getName() + ".");
+            }
+            this.cipher = cipher;
+            this.keyText = keyText;
+            this.decrypt = decrypt;
+            this.key = decrypt ? compiled.inverse() : compiled;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.cipherforge.core;
+
+/**
+ * A validated key with its shift sequence and substitution table precomputed,
+ * so it can be reused across many encryptions. The original key text is not
+ * retained. A key may instead be a single letter permutation (forAlphabet),
+ * which has period 1 and no shift sequence.
+ */
+public final class CompiledKey {
+    private final String algorithm;
+    private final int[] shifts;
+    private final int[] alphabet;
+    private final SubstitutionTable table;
+    private volatile CompiledKey inverse;
+    
+    public CompiledKey(String algorithm, int[] shifts) {
+        if (shifts == null || shifts.length == 0) {
+            throw new IllegalArgumentException("A compiled key needs at least one shift.");
+        }
+        this.algorithm = algorithm;
+        this.shifts = shifts.clone();
+        this.alphabet = null;
+        this.table = SubstitutionTable.forShifts(this.shifts);
+    }
+    
+    private CompiledKey(String algorithm, int[] alphabet, SubstitutionTable table) {
+        this.algorithm = algorithm;
+        this.shifts = null;
+        this.alphabet = alphabet;
+        this.table = table;
+    }
+    
+    /**
+     * A key that maps letter i (A=0) to letter alphabet[i]. Throws
+     * IllegalArgumentException unless alphabet is a permutation of 0-25.
+     */
+    public static CompiledKey forAlphabet(String algorithm, int[] alphabet) {
+        if (alphabet == null || alphabet.length != 26) {
+            throw new IllegalArgumentException("A letter permutation needs exactly 26 entries.");
+        }
+        boolean[] seen = new boolean[26];
+        for (int letter : alphabet) {
+            if (letter < 0 || letter >= 26 || seen[letter]) {
+                throw new IllegalArgumentException("Not a permutation of the 26 letters.");
+            }
+            seen[letter] = true;
+        }
+        
+        int[] copy = alphabet.clone();
+        return new CompiledKey(algorithm, copy, SubstitutionTable.forAlphabet(copy));
+    }
+    
+    public String getAlgorithm() {
+        return algorithm;
+    }
+    
+    public int getPeriod() {
+        return shifts != null ? shifts.length : 1;
+    }
+    
+    /**
+     * The shift sequence, or null for a letter permutation.
+     */
+    public int[] getShifts() {
+        return shifts != null ? shifts.clone() : null;
+    }
+    
+    /**
+     * The letter permutation, or null for a shift sequence.
+     */
+    public int[] getAlphabet() {
+        return alphabet != null ? alphabet.clone() : null;
+    }
+    
+    public SubstitutionTable getTable() {
+        return table;
+    }
+    
+    /**
+     * A 16-hex-digit digest of the algorithm and shift sequence or
+     * permutation. Equal keys have equal fingerprints. It does not contain
+     * the key, though a key space as small as the shift ciphers' can be
+     * searched against it.
+     */
+    public String getFingerprint() {
+        int[] sequence = shifts != null ? shifts : alphabet;
+        byte[] material = new byte[sequence.length];
+        for (int i = 0; i < sequence.length; i++) {
+            material[i] = (byte) sequence[i];
+        }
+        return KeyFingerprint.of(algorithm, material);
+    }
+    
+    /**
+     * Returns the key that undoes this one. It is computed once and shared.
+     */
+    public CompiledKey inverse() {
+        CompiledKey result = inverse;
+        if (result == null && alphabet != null) {
+            int[] reversed = new int[26];
+            for (int i = 0; i < 26; i++) {
+                reversed[alphabet[i]] = i;
+            }
+            result = new CompiledKey(algorithm, reversed, SubstitutionTable.forAlphabet(reversed));
+            result.inverse = this;
+            inverse = result;
+        } else if (result == null) {
+            int[] negated = new int[shifts.length];
+            for (int i = 0; i < shifts.length; i++) {
+                negated[i] = Math.floorMod(-shifts[i], 26);
+            }
+            result = new CompiledKey(algorithm, negated);
+            result.inverse = this;
+            inverse = result;
+        }
+        return result;
+    }
+    
+    /**
+     * Encrypts buffer[offset, offset + length) in place starting at keyIndex and
+     * returns the key index for the next letter.
+     */
+    public int apply(char[] buffer, int offset, int length, int keyIndex) {
+        return table.apply(buffer, offset, length, keyIndex);
+    }
+    
+    public int apply(byte[] buffer, int offset, int length, int keyIndex) {
+        return table.apply(buffer, offset, length, keyIndex);
+    }
+}
@@ -0,0 +1,171 @@
+package com.cipherforge.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of compiled keys keyed by (algorithm, key). Lookups are
+ * lock-free and allocate nothing: entries live in one map per algorithm keyed
+ * by the key string itself. Eviction uses the CLOCK (second-chance)
+ * approximation of LRU, so a key that was hit since it was last examined
+ * survives one more pass. Invalid keys are never cached.
+ */
+public final class KeyCache {
+    public static final String SIZE_PROPERTY = "cipherforge.keyCache.size";
+    public static final int DEFAULT_CAPACITY = 256;
+    
+    private static volatile KeyCache defaultCache;
+    
+    private final int capacity;
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Entry>> entries =
+            new ConcurrentHashMap<String, ConcurrentHashMap<String, Entry>>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Queue<Entry> clock = new ConcurrentLinkedQueue<Entry>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    public KeyCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+    
+    /**
+     * Returns the process-wide cache used by the ciphers. Its capacity comes
+     * from the cipherforge.keyCache.size system property.
+     */
+    public static KeyCache getDefault() {
+        KeyCache cache = defaultCache;
+        if (cache == null) {
+            synchronized (KeyCache.class) {
+                cache = defaultCache;
+                if (cache == null) {
+                    cache = new KeyCache(Integer.getInteger(SIZE_PROPERTY, DEFAULT_CAPACITY));
+                    defaultCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+    
+    /**
+     * Returns the compiled form of key for cipher, compiling and caching it on
+     * a miss, or null if the key is invalid.
+     */
+    public CompiledKey get(CipherAlgorithm cipher, String key) {
+        if (key == null) {
+            return null;
+        }
+        
+        ConcurrentHashMap<String, Entry> algorithmEntries = entries.get(cipher.getName());
+        Entry cached = algorithmEntries != null ? algorithmEntries.get(key) : null;
+        
+        if (cached != null) {
+            hits.increment();
+            if (!cached.referenced) {
+                cached.referenced = true;
+            }
+            return cached.compiled;
+        }
+        
+        misses.increment();
+        CompiledKey compiled = cipher.compileKey(key);
+        if (compiled == null) {
+            return null;
+        }
+        
+        if (algorithmEntries == null) {
+            algorithmEntries = entries.computeIfAbsent(cipher.getName(),
+                    name -> new ConcurrentHashMap<String, Entry>());
+        }
+        
+        Entry entry = new Entry(cipher.getName(), key, compiled);
+        Entry existing = algorithmEntries.putIfAbsent(key, entry);
+        if (existing != null) {
+            return existing.compiled;
+        }
+        
+        size.incrementAndGet();
+        clock.offer(entry);
+        evictIfNeeded();
+        return compiled;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    public int size() {
+        return size.get();
+    }
+    
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    public long getEvictions() {
+        return evictions.sum();
+    }
+    
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+    
+    public void clear() {
+        for (ConcurrentHashMap<String, Entry> algorithmEntries : entries.values()) {
+            for (Entry entry : algorithmEntries.values()) {
+                if (algorithmEntries.remove(entry.key, entry)) {
+                    size.decrementAndGet();
+                }
+            }
+        }
+        clock.clear();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("KeyCache[size=%d/%d, hits=%d, misses=%d, evictions=%d, hitRate=%.1f%%]",
+                size(), capacity, getHits(), getMisses(), getEvictions(), getHitRate() * 100);
+    }
+    
+    private void evictIfNeeded() {
+        while (size.get() > capacity) {
+            Entry candidate = clock.poll();
+            if (candidate == null) {
+                return;
+            }
+            
+            if (candidate.referenced) {
+                candidate.referenced = false;
+                clock.offer(candidate);
+            } else if (entries.get(candidate.algorithm).remove(candidate.key, candidate)) {
+                size.decrementAndGet();
+                evictions.increment();
+            }
+        }
+    }
+    
+    private static final class Entry {
+        final String algorithm;
+        final String key;
+        final CompiledKey compiled;
+        volatile boolean referenced;
+        
+        Entry(String algorithm, String key, CompiledKey compiled) {
+            this.algorithm = algorithm;
+            this.key = key;
+            this.compiled = compiled;
+        }
+    }
+}
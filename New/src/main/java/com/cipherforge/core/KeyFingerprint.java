@@ -0,0 +1,37 @@
+package com.cipherforge.core;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Short SHA-256 digests that let files record which key produced them
+ * without storing the key itself.
+ */
+final class KeyFingerprint {
+    private static final int HEX_DIGITS = 16;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    
+    private KeyFingerprint() {
+    }
+    
+    static String of(String algorithm, byte[] shifts) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+        
+        digest.update(algorithm.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        byte[] hash = digest.digest(shifts);
+        
+        char[] hex = new char[HEX_DIGITS];
+        for (int i = 0; i < HEX_DIGITS; i += 2) {
+            hex[i] = HEX[(hash[i / 2] >> 4) & 0xF];
+            hex[i + 1] = HEX[hash[i / 2] & 0xF];
+        }
+        return new String(hex);
+    }
+}
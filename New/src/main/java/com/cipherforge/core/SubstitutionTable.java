@@ -0,0 +1,286 @@
+package com.cipherforge.core;
+
+/**
+ * Precomputed per-key-position substitution tables for letter-shifting ciphers,
+ * or a single table for an arbitrary letter permutation (forAlphabet).
+ * Characters below 256 are translated with a single table lookup; anything
+ * else falls back to the Character-based rules used by the ciphers.
+ */
+public final class SubstitutionTable {
+    public static final int MAX_TABLE_PERIOD = 4096;
+    public static final int VECTOR_THRESHOLD = 64;
+    
+    private static final int TABLE_SIZE = 256;
+    private static final byte[] CHAR_LETTERS = new byte[TABLE_SIZE];
+    private static final byte[] ASCII_LETTERS = new byte[TABLE_SIZE];
+    private static final VectorKernel KERNEL = loadKernel();
+    private static final SubstitutionTable[] CAESAR_TABLES = new SubstitutionTable[26];
+    
+    static {
+        for (int ch = 0; ch < TABLE_SIZE; ch++) {
+            if (Character.isUpperCase(ch) || Character.isLowerCase(ch)) {
+                CHAR_LETTERS[ch] = 1;
+            }
+            if ((ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z')) {
+                ASCII_LETTERS[ch] = 1;
+            }
+        }
+        
+        for (int shift = 0; shift < 26; shift++) {
+            CAESAR_TABLES[shift] = new SubstitutionTable(new int[] { shift });
+        }
+    }
+    
+    private final int period;
+    private final int[] shifts;
+    private final int[] alphabet;
+    private final char[] charTable;
+    private final byte[] byteTable;
+    private final Object kernelData;
+    
+    private SubstitutionTable(int[] shifts) {
+        this.period = shifts.length;
+        this.shifts = shifts.clone();
+        this.alphabet = null;
+        this.kernelData = KERNEL != null ? KERNEL.prepare(this.shifts) : null;
+        
+        if (period > MAX_TABLE_PERIOD) {
+            charTable = null;
+            byteTable = null;
+            return;
+        }
+        
+        charTable = new char[period * TABLE_SIZE];
+        byteTable = new byte[period * TABLE_SIZE];
+        
+        if (period == 1) {
+            for (int ch = 0; ch < TABLE_SIZE; ch++) {
+                char mapped = map((char) ch, shifts[0]);
+                charTable[ch] = mapped;
+                byteTable[ch] = ASCII_LETTERS[ch] != 0 ? (byte) mapped : (byte) ch;
+            }
+            return;
+        }
+        
+        for (int k = 0; k < period; k++) {
+            SubstitutionTable row = CAESAR_TABLES[Math.floorMod(shifts[k], 26)];
+            System.arraycopy(row.charTable, 0, charTable, k * TABLE_SIZE, TABLE_SIZE);
+            System.arraycopy(row.byteTable, 0, byteTable, k * TABLE_SIZE, TABLE_SIZE);
+        }
+    }
+    
+    private SubstitutionTable(int[] alphabet, char[] charTable, byte[] byteTable) {
+        this.period = 1;
+        this.shifts = null;
+        this.alphabet = alphabet;
+        this.charTable = charTable;
+        this.byteTable = byteTable;
+        this.kernelData = null;
+    }
+    
+    /**
+     * Returns the table for the given shift sequence. Single-shift (Caesar)
+     * tables are shared; longer sequences build a new table.
+     */
+    public static SubstitutionTable forShifts(int[] shifts) {
+        if (shifts.length == 1) {
+            return forShift(shifts[0]);
+        }
+        return new SubstitutionTable(shifts);
+    }
+    
+    public static SubstitutionTable forShift(int shift) {
+        return CAESAR_TABLES[Math.floorMod(shift, 26)];
+    }
+    
+    /**
+     * Returns a table mapping letter i (A=0) to letter alphabet[i], keeping
+     * case. alphabet must be a permutation of 0-25; CompiledKey checks that.
+     * There is no vector kernel for permutations, so the table runs scalar.
+     */
+    public static SubstitutionTable forAlphabet(int[] alphabet) {
+        int[] copy = alphabet.clone();
+        char[] charTable = new char[TABLE_SIZE];
+        byte[] byteTable = new byte[TABLE_SIZE];
+        
+        for (int ch = 0; ch < TABLE_SIZE; ch++) {
+            char mapped = map((char) ch, copy);
+            charTable[ch] = mapped;
+            byteTable[ch] = ASCII_LETTERS[ch] != 0 ? (byte) mapped : (byte) ch;
+        }
+        return new SubstitutionTable(copy, charTable, byteTable);
+    }
+    
+    public int getPeriod() {
+        return period;
+    }
+    
+    /**
+     * Returns true if a SIMD kernel was loaded, i.e. the vector build is on the
+     * classpath and the JVM was started with --add-modules jdk.incubator.vector.
+     * Set -Dcipherforge.vector=false to force the scalar loops.
+     */
+    public static boolean isVectorized() {
+        return KERNEL != null;
+    }
+    
+    /**
+     * Encrypts buffer[offset, offset + length) in place starting at keyIndex and
+     * returns the key index for the next letter.
+     */
+    public int apply(char[] buffer, int offset, int length, int keyIndex) {
+        if (kernelData != null && length >= VECTOR_THRESHOLD) {
+            return KERNEL.apply(this, kernelData, buffer, offset, length, keyIndex);
+        }
+        return applyScalar(buffer, offset, length, keyIndex);
+    }
+    
+    /**
+     * The table-lookup loop used when no vector kernel is available; kernels
+     * call it for blocks they cannot vectorise.
+     */
+    public int applyScalar(char[] buffer, int offset, int length, int keyIndex) {
+        if (charTable == null) {
+            return CipherAlgorithm.shiftLetters(buffer, offset, length, shifts, keyIndex);
+        }
+        
+        int end = offset + length;
+        
+        if (period == 1) {
+            for (int i = offset; i < end; i++) {
+                char ch = buffer[i];
+                buffer[i] = ch < TABLE_SIZE ? charTable[ch] : mapSingle(ch);
+            }
+            return 0;
+        }
+        
+        for (int i = offset; i < end; i++) {
+            char ch = buffer[i];
+            
+            if (ch < TABLE_SIZE) {
+                buffer[i] = charTable[(keyIndex << 8) + ch];
+                keyIndex += CHAR_LETTERS[ch];
+                keyIndex &= (keyIndex - period) >> 31;
+            } else if (Character.isUpperCase(ch) || Character.isLowerCase(ch)) {
+                buffer[i] = map(ch, shifts[keyIndex]);
+                keyIndex = keyIndex + 1 == period ? 0 : keyIndex + 1;
+            }
+        }
+        
+        return keyIndex;
+    }
+    
+    /**
+     * Encrypts ASCII bytes in place. Only A-Z and a-z are shifted and advance the
+     * key; bytes of 0x80 and above pass through unchanged, so callers holding
+     * non-ASCII text must decode it and use the char path instead.
+     */
+    public int apply(byte[] buffer, int offset, int length, int keyIndex) {
+        if (kernelData != null && length >= VECTOR_THRESHOLD) {
+            return KERNEL.apply(this, kernelData, buffer, offset, length, keyIndex);
+        }
+        return applyScalar(buffer, offset, length, keyIndex);
+    }
+    
+    public int applyScalar(byte[] buffer, int offset, int length, int keyIndex) {
+        int end = offset + length;
+        
+        if (byteTable == null) {
+            for (int i = offset; i < end; i++) {
+                int b = buffer[i] & 0xFF;
+                if (ASCII_LETTERS[b] != 0) {
+                    buffer[i] = (byte) map((char) b, shifts[keyIndex]);
+                    keyIndex = keyIndex + 1 == period ? 0 : keyIndex + 1;
+                }
+            }
+            return keyIndex;
+        }
+        
+        if (period == 1) {
+            for (int i = offset; i < end; i++) {
+                buffer[i] = byteTable[buffer[i] & 0xFF];
+            }
+            return 0;
+        }
+        
+        for (int i = offset; i < end; i++) {
+            int b = buffer[i] & 0xFF;
+            buffer[i] = byteTable[(keyIndex << 8) + b];
+            keyIndex += ASCII_LETTERS[b];
+            keyIndex &= (keyIndex - period) >> 31;
+        }
+        
+        return keyIndex;
+    }
+    
+    public static boolean isAscii(byte[] buffer, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            if (buffer[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    public static int countLetters(char[] buffer, int offset, int length) {
+        int end = offset + length;
+        int count = 0;
+        
+        for (int i = offset; i < end; i++) {
+            char ch = buffer[i];
+            if (ch < TABLE_SIZE) {
+                count += CHAR_LETTERS[ch];
+            } else if (Character.isUpperCase(ch) || Character.isLowerCase(ch)) {
+                count++;
+            }
+        }
+        
+        return count;
+    }
+    
+    public static int countAsciiLetters(byte[] buffer, int offset, int length) {
+        int end = offset + length;
+        int count = 0;
+        
+        for (int i = offset; i < end; i++) {
+            count += ASCII_LETTERS[buffer[i] & 0xFF];
+        }
+        
+        return count;
+    }
+    
+    private static VectorKernel loadKernel() {
+        if (!Boolean.parseBoolean(System.getProperty("cipherforge.vector", "true"))) {
+            return null;
+        }
+        try {
+            Class<?> kernel = Class.forName("com.cipherforge.vector.VectorCipherKernel");
+            return (VectorKernel) kernel.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+    
+    private static char map(char ch, int shift) {
+        if (Character.isUpperCase(ch)) {
+            return (char) ('A' + Math.floorMod(ch - 'A' + shift, 26));
+        } else if (Character.isLowerCase(ch)) {
+            return (char) ('a' + Math.floorMod(ch - 'a' + shift, 26));
+        }
+        return ch;
+    }
+    
+    private char mapSingle(char ch) {
+        return alphabet != null ? map(ch, alphabet) : map(ch, shifts[0]);
+    }
+    
+    private static char map(char ch, int[] alphabet) {
+        if (Character.isUpperCase(ch)) {
+            return (char) ('A' + alphabet[Math.floorMod(ch - 'A', 26)]);
+        } else if (Character.isLowerCase(ch)) {
+            return (char) ('a' + alphabet[Math.floorMod(ch - 'a', 26)]);
+        }
+        return ch;
+    }
+}
@@ -0,0 +1,21 @@
+package com.cipherforge.core;
+
+/**
+ * Optional SIMD implementation of SubstitutionTable.apply. The kernel is built
+ * separately (see the vector profile) because it needs the jdk.incubator.vector
+ * module; when it is missing SubstitutionTable uses its scalar loops.
+ *
+ * Kernels must produce exactly the scalar result and may hand any block they
+ * cannot vectorise, such as chars outside ASCII, to table.applyScalar.
+ */
+public interface VectorKernel {
+    /**
+     * Precomputes the per-shift-sequence data the kernel needs. The result is
+     * stored with the table and passed back to apply.
+     */
+    Object prepare(int[] shifts);
+    
+    int apply(SubstitutionTable table, Object prepared, char[] buffer, int offset, int length, int keyIndex);
+    
+    int apply(SubstitutionTable table, Object prepared, byte[] buffer, int offset, int length, int keyIndex);
+}
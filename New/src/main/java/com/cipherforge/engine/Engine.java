@@ -5,6 +5,8 @@ import java.util.logging.Level;
 
 import com.cipherforge.core.CipherAlgorithm;
 import com.cipherforge.core.CipherResult;
+import com.cipherforge.metrics.CipherMetrics;
+import com.cipherforge.registry.CipherProvider;
 import com.cipherforge.registry.CipherRegistry;
 import com.cipherforge.ui.InputManager;
 import com.cipherforge.ui.MenuOption;
@@ -22,6 +24,7 @@ public class Engine {
         inputManager = new InputManager();
         
         logger.setLevel(Level.SEVERE);
+        CipherMetrics.getDefault().registerMBeans();
     }
     
     public void start() {
@@ -35,6 +38,7 @@ public class Engine {
                 MenuOption choice = inputManager.getMenuChoice();
                 continueRunning = handleMenuChoice(choice);
                 sessionCount++;
+                CipherMetrics.getDefault().recordSession();
                 
             } catch (InvalidInputException e) {
                 handleInputError(e);
@@ -93,7 +97,7 @@ public class Engine {
             
             String plaintext = inputManager.getPlaintext();
             
-            String key = inputManager.getKey(selectedCipher.getName());
+            String key = inputManager.getKey(registry.getProvider(cipherChoice).getKeySchema());
             
             System.out.println("\n" + SECTION_SEPARATOR);
             System.out.println("Processing encryption...");
@@ -124,26 +128,15 @@ public class Engine {
         System.out.println("AVAILABLE CIPHER ALGORITHMS");
         System.out.println(HEADER_SEPARATOR);
         
-        registry.displayCipherNames();
-        
-        System.out.println("\nDetailed Information:");
-        System.out.println();
-        
-        System.out.println("1. Caesar Cipher:");
-        System.out.println("   Type: Substitution cipher");
-        System.out.println("   Method: Shifts each letter by a fixed number");
-        System.out.println("   Key: Integer (-25 to 25)");
-        System.out.println("   Security: Low (easily breakable)");
-        System.out.println("   Use case: Educational purposes");
-        System.out.println();
-        
-        System.out.println("2. Vigenere Cipher:");
-        System.out.println("   Type: Polyalphabetic substitution cipher");
-        System.out.println("   Method: Uses keyword for variable shifts");
-        System.out.println("   Key: Alphabetic string (1-20 characters)");
-        System.out.println("   Security: Medium (stronger than Caesar)");
-        System.out.println("   Use case: Historical cryptography");
-        System.out.println();
+        for (String id : registry.getCipherIds()) {
+            CipherProvider provider = registry.getProvider(id);
+            System.out.println(id + ". " + provider.getName() + ":");
+            for (String line : provider.getDescription().split("\n")) {
+                System.out.println("   " + line);
+            }
+            System.out.println("   Key: " + provider.getKeySchema().getDescription());
+            System.out.println();
+        }
         
         System.out.println("Press Enter to continue...");
         try {
@@ -208,6 +201,7 @@ public class Engine {
     private void handleUnexpectedError(Exception e) {
         System.err.println("\nUnexpected Error: " + e.getMessage());
         System.err.println("Please report this issue if it persists.");
+        CipherMetrics.getDefault().recordFailure(CipherMetrics.UNEXPECTED);
         logger.log(Level.SEVERE, "Unexpected application error", e);
     }
     
@@ -218,6 +212,8 @@ public class Engine {
     
     private void displayGoodbyeMessage(int sessionCount) {
         System.out.println("\nThank you for using The Cipher Forge!");
+        System.out.println("Session ended after " + sessionCount + " menu actions.");
+        System.out.print(CipherMetrics.getDefault().toText());
     }
     
     private void cleanup() {
@@ -0,0 +1,24 @@
+package com.cipherforge.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Thrown when a checkpoint sidecar does not describe the job being resumed:
+ * a different key or algorithm, a changed input file, or output that no
+ * longer matches the recorded checksum.
+ */
+public class CheckpointMismatchException extends IOException {
+    private static final long serialVersionUID = 1L;
+    
+    private final Path checkpoint;
+    
+    public CheckpointMismatchException(Path checkpoint, String reason) {
+        super(reason + " Delete " + checkpoint + " to start over.");
+        this.checkpoint = checkpoint;
+    }
+    
+    public Path getCheckpoint() {
+        return checkpoint;
+    }
+}
@@ -0,0 +1,339 @@
+package com.cipherforge.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.zip.CRC32C;
+
+import com.cipherforge.core.ByteKey;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.metrics.AlgorithmMetrics;
+import com.cipherforge.metrics.CipherMetrics;
+
+/**
+ * Encrypts a file so that a run that dies partway can be resumed. Every
+ * checkpointInterval input bytes the output is fsynced and a small sidecar
+ * (output name + ".checkpoint") records the input and output offsets, the key
+ * position and a CRC32C of the output so far. The sidecar is written to a
+ * temp file, fsynced and atomically renamed over the previous one, so it is
+ * always either the old or the new checkpoint.
+ *
+ * When a sidecar exists the run resumes from it: the output prefix is checked
+ * against the recorded checksum, anything written after the checkpoint is
+ * truncated and encryption continues from the recorded key position, so the
+ * result is byte-for-byte the output of an uninterrupted run. The sidecar is
+ * deleted when the file is complete.
+ *
+ * Text is decoded and encoded as UTF-8 in a single pass; byte cipher keys skip
+ * the charset layer. Only regular files can be resumed, since the input has to
+ * be read again from an offset.
+ */
+public class CheckpointedFileEncryptor {
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 64L * 1024 * 1024;
+    public static final String SIDECAR_SUFFIX = ".checkpoint";
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String VERSION = "1";
+    
+    private final long checkpointInterval;
+    
+    public CheckpointedFileEncryptor() {
+        this(DEFAULT_CHECKPOINT_INTERVAL);
+    }
+    
+    public CheckpointedFileEncryptor(long checkpointInterval) {
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive: " + checkpointInterval);
+        }
+        this.checkpointInterval = checkpointInterval;
+    }
+    
+    public static Path sidecarFor(Path output) {
+        return output.resolveSibling(output.getFileName() + SIDECAR_SUFFIX);
+    }
+    
+    /**
+     * Encrypts UTF-8 text from input into output with a letter cipher key,
+     * resuming from output's checkpoint if there is one. Returns the number of
+     * input bytes processed by this run.
+     */
+    public long encrypt(Path input, Path output, CompiledKey key) throws IOException {
+        AlgorithmMetrics metrics = CipherMetrics.getDefault().forAlgorithm(key.getAlgorithm());
+        long start = metrics.startBulk();
+        
+        try (Job job = new Job(input, output, key.getAlgorithm(), key.getFingerprint())) {
+            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+            CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+            ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+            CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+            ByteBuffer out = ByteBuffer.allocate((int) (BUFFER_SIZE * encoder.maxBytesPerChar()));
+            boolean endOfInput = false;
+            
+            while (!endOfInput) {
+                endOfInput = job.source.read(in) == -1;
+                in.flip();
+                
+                CoderResult result;
+                do {
+                    result = decoder.decode(in, chars, endOfInput);
+                    if (result.isError()) {
+                        result.throwException();
+                    }
+                    
+                    chars.flip();
+                    job.keyIndex = key.apply(chars.array(), chars.arrayOffset(), chars.remaining(), job.keyIndex);
+                    CoderResult encoded = encoder.encode(chars, out, endOfInput && !result.isOverflow());
+                    if (encoded.isError()) {
+                        encoded.throwException();
+                    }
+                    out.flip();
+                    job.write(out);
+                    out.clear();
+                    chars.clear();
+                } while (result.isOverflow());
+                
+                job.inputOffset += in.position();
+                in.compact();
+                job.checkpointIfDue();
+            }
+            
+            long processed = job.finish();
+            metrics.recordBytes(processed, start);
+            return processed;
+        } catch (IOException e) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.reasonFor(e));
+            throw e;
+        }
+    }
+    
+    /**
+     * Encrypts input into output with a byte cipher key, resuming from
+     * output's checkpoint if there is one. Returns the number of bytes
+     * processed by this run.
+     */
+    public long encrypt(Path input, Path output, ByteKey key) throws IOException {
+        AlgorithmMetrics metrics = CipherMetrics.getDefault().forAlgorithm(key.getAlgorithm());
+        long start = metrics.startBulk();
+        
+        try (Job job = new Job(input, output, key.getAlgorithm(), key.getFingerprint())) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            
+            while (job.source.read(buffer) != -1) {
+                buffer.flip();
+                job.keyIndex = key.apply(buffer, job.keyIndex);
+                job.inputOffset += buffer.remaining();
+                job.write(buffer);
+                buffer.clear();
+                job.checkpointIfDue();
+            }
+            
+            long processed = job.finish();
+            metrics.recordBytes(processed, start);
+            return processed;
+        } catch (IOException e) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.reasonFor(e));
+            throw e;
+        }
+    }
+    
+    /**
+     * The open files and running position of one encryption. Opening it
+     * resumes from the sidecar, if any.
+     */
+    private final class Job implements AutoCloseable {
+        final FileChannel source;
+        final FileChannel target;
+        final Path sidecar;
+        final String algorithm;
+        final String fingerprint;
+        final long inputSize;
+        final long inputModified;
+        final long resumedFrom;
+        final CRC32C checksum = new CRC32C();
+        long inputOffset;
+        long outputOffset;
+        int keyIndex;
+        long lastCheckpoint;
+        
+        Job(Path input, Path output, String algorithm, String fingerprint) throws IOException {
+            this.sidecar = sidecarFor(output);
+            this.algorithm = algorithm;
+            this.fingerprint = fingerprint;
+            this.inputSize = Files.size(input);
+            this.inputModified = Files.getLastModifiedTime(input).toMillis();
+            
+            FileChannel opened = FileChannel.open(input, StandardOpenOption.READ);
+            try {
+                target = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                opened.close();
+                throw e;
+            }
+            source = opened;
+            
+            try {
+                if (Files.exists(sidecar)) {
+                    resume();
+                } else {
+                    target.truncate(0);
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+            
+            resumedFrom = inputOffset;
+            lastCheckpoint = inputOffset;
+            source.position(inputOffset);
+            target.position(outputOffset);
+        }
+        
+        private void resume() throws IOException {
+            Properties saved = new Properties();
+            saved.load(new StringReader(new String(Files.readAllBytes(sidecar), StandardCharsets.UTF_8)));
+            
+            try {
+                if (!VERSION.equals(saved.getProperty("version"))) {
+                    throw new CheckpointMismatchException(sidecar, "Unsupported checkpoint version.");
+                }
+                if (!algorithm.equals(saved.getProperty("algorithm"))
+                        || !fingerprint.equals(saved.getProperty("keyFingerprint"))) {
+                    throw new CheckpointMismatchException(sidecar, "Checkpoint was written with a different key.");
+                }
+                if (inputSize != Long.parseLong(saved.getProperty("inputSize"))
+                        || inputModified != Long.parseLong(saved.getProperty("inputModified"))) {
+                    throw new CheckpointMismatchException(sidecar, "Input file has changed since the checkpoint.");
+                }
+                
+                inputOffset = Long.parseLong(saved.getProperty("inputOffset"));
+                outputOffset = Long.parseLong(saved.getProperty("outputOffset"));
+                keyIndex = Integer.parseInt(saved.getProperty("keyIndex"));
+                long expected = Long.parseLong(saved.getProperty("crc32c"), 16);
+                
+                if (target.size() < outputOffset || checksumPrefix(outputOffset) != expected) {
+                    throw new CheckpointMismatchException(sidecar, "Output does not match the checkpoint.");
+                }
+            } catch (NumberFormatException e) {
+                throw new CheckpointMismatchException(sidecar, "Checkpoint file is damaged.");
+            }
+            
+            target.truncate(outputOffset);
+        }
+        
+        private long checksumPrefix(long length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            long position = 0;
+            while (position < length) {
+                buffer.limit((int) Math.min(BUFFER_SIZE, length - position));
+                int read = target.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                buffer.flip();
+                checksum.update(buffer);
+                buffer.clear();
+                position += read;
+            }
+            return checksum.getValue();
+        }
+        
+        void write(ByteBuffer buffer) throws IOException {
+            checksum.update(buffer.duplicate());
+            outputOffset += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+        }
+        
+        void checkpointIfDue() throws IOException {
+            if (inputOffset - lastCheckpoint >= checkpointInterval) {
+                checkpoint();
+                lastCheckpoint = inputOffset;
+            }
+        }
+        
+        /**
+         * Makes the output durable up to outputOffset, then atomically
+         * replaces the sidecar. A crash between the two leaves the previous
+         * checkpoint, which still describes a durable prefix.
+         */
+        private void checkpoint() throws IOException {
+            target.force(false);
+            
+            Properties state = new Properties();
+            state.setProperty("version", VERSION);
+            state.setProperty("algorithm", algorithm);
+            state.setProperty("keyFingerprint", fingerprint);
+            state.setProperty("inputSize", Long.toString(inputSize));
+            state.setProperty("inputModified", Long.toString(inputModified));
+            state.setProperty("inputOffset", Long.toString(inputOffset));
+            state.setProperty("outputOffset", Long.toString(outputOffset));
+            state.setProperty("keyIndex", Integer.toString(keyIndex));
+            state.setProperty("crc32c", Long.toHexString(checksum.getValue()));
+            
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            state.store(bytes, "cipher-forge checkpoint");
+            
+            // A fixed temp name, so a crash mid-write leaves nothing behind that
+            // the next checkpoint does not overwrite.
+            Path temp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                    ByteBuffer content = ByteBuffer.wrap(bytes.toByteArray());
+                    while (content.hasRemaining()) {
+                        channel.write(content);
+                    }
+                    channel.force(true);
+                }
+                Files.move(temp, sidecar, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            forceDirectory(sidecar.toAbsolutePath().getParent());
+        }
+        
+        /**
+         * Completes the output and removes the sidecar. Returns the input
+         * bytes processed by this run.
+         */
+        long finish() throws IOException {
+            target.force(true);
+            Files.deleteIfExists(sidecar);
+            return inputOffset - resumedFrom;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            try {
+                source.close();
+            } finally {
+                target.close();
+            }
+        }
+    }
+    
+    /**
+     * Makes a rename durable by syncing its directory. Not every platform can
+     * open a directory as a channel; there the rename is left to the OS.
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+        }
+    }
+}
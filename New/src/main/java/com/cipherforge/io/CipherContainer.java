@@ -0,0 +1,646 @@
+package com.cipherforge.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+
+import com.cipherforge.core.ByteKey;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.core.SubstitutionTable;
+import com.cipherforge.metrics.AlgorithmMetrics;
+import com.cipherforge.metrics.CipherMetrics;
+import com.cipherforge.registry.CipherProvider;
+import com.cipherforge.registry.CipherRegistry;
+
+/**
+ * Reads and writes the cipher container format: a header naming the cipher
+ * and key, followed by independently decryptable chunks.
+ *
+ * <pre>
+ * header: magic "CFC1" | version u8 | id length u8 | registry id (UTF-8)
+ *         | key fingerprint u64 | chunk size u32 | CRC32C of the above u32
+ * chunk:  key offset u32 | payload length u32 | CRC32C of payload u32 | payload
+ * end:    a chunk record with payload length 0
+ * </pre>
+ *
+ * Each chunk records the key position it starts at, so chunks decrypt in
+ * parallel with no pass over the ones before, and a damaged chunk is
+ * reported as soon as it is read. The key itself is never stored; a
+ * fingerprint lets decryption reject the wrong key up front.
+ *
+ * Letter cipher chunks hold UTF-8 text and are cut on character boundaries,
+ * so each chunk's payload is at most the chunk size. Byte cipher chunks hold
+ * exactly chunk size bytes, except the last.
+ */
+public class CipherContainer {
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+    public static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+    
+    private static final int MAGIC = 0x43464331;
+    private static final int VERSION = 1;
+    private static final int CHUNK_HEADER_SIZE = 12;
+    
+    private final CipherRegistry registry;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    
+    public CipherContainer() {
+        this(new CipherRegistry(), ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+    
+    public CipherContainer(CipherRegistry registry, ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + MAX_CHUNK_SIZE + ": " + chunkSize);
+        }
+        this.registry = registry;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+    
+    /**
+     * The fields of a container header.
+     */
+    public static final class Header {
+        private final String algorithmId;
+        private final long fingerprint;
+        private final int chunkSize;
+        
+        Header(String algorithmId, long fingerprint, int chunkSize) {
+            this.algorithmId = algorithmId;
+            this.fingerprint = fingerprint;
+            this.chunkSize = chunkSize;
+        }
+        
+        public String getAlgorithmId() {
+            return algorithmId;
+        }
+        
+        public String getFingerprint() {
+            return String.format("%016x", fingerprint);
+        }
+        
+        public int getChunkSize() {
+            return chunkSize;
+        }
+    }
+    
+    /**
+     * Encrypts UTF-8 text from input into a container at output. Returns the
+     * number of input bytes.
+     */
+    public long encrypt(Path input, Path output, CompiledKey key) throws IOException {
+        return encrypt(input, output, new TextCodec(key), key.getFingerprint());
+    }
+    
+    public long encrypt(Path input, Path output, ByteKey key) throws IOException {
+        return encrypt(input, output, new ByteCodec(key), key.getFingerprint());
+    }
+    
+    /**
+     * Decrypts the container at input into output with key, the key it was
+     * encrypted with. Returns the number of bytes written. If the container
+     * turns out to be damaged, output is truncated to zero.
+     */
+    public long decrypt(Path input, Path output, CompiledKey key) throws IOException {
+        return decrypt(input, output, new TextCodec(key.inverse()), key.getFingerprint());
+    }
+    
+    public long decrypt(Path input, Path output, ByteKey key) throws IOException {
+        return decrypt(input, output, new ByteCodec(key.inverse()), key.getFingerprint());
+    }
+    
+    /**
+     * Reads and checks the header of the container at file.
+     */
+    public static Header readHeader(Path file) throws IOException {
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readHeader(source);
+        }
+    }
+    
+    /**
+     * Checks every chunk checksum without decrypting, stopping at the first
+     * damaged chunk. Returns the number of chunks.
+     */
+    public static long verify(Path file) throws IOException {
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = readHeader(source);
+            ByteBuffer record = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+            ByteBuffer payload = ByteBuffer.allocate(header.chunkSize);
+            CRC32C checksum = new CRC32C();
+            long chunks = 0;
+            
+            while (true) {
+                long position = source.position();
+                readRecord(source, record, position);
+                record.getInt();
+                int length = record.getInt();
+                int crc = record.getInt();
+                if (length == 0) {
+                    return chunks;
+                }
+                checkLength(length, header.chunkSize, position);
+                
+                payload.clear().limit(length);
+                readPayload(source, payload, position);
+                payload.flip();
+                checksum.reset();
+                checksum.update(payload);
+                if ((int) checksum.getValue() != crc) {
+                    throw new InvalidContainerException(position, "Chunk checksum does not match.");
+                }
+                chunks++;
+            }
+        }
+    }
+    
+    private long encrypt(Path input, Path output, final Codec codec, String fingerprint) throws IOException {
+        String id = registry.getId(codec.algorithm());
+        if (id == null) {
+            throw new IllegalArgumentException(codec.algorithm() + " is not a registered cipher.");
+        }
+        AlgorithmMetrics metrics = CipherMetrics.getDefault().forAlgorithm(codec.algorithm());
+        long start = metrics.startBulk();
+        
+        try (FileChannel source = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(target, id, Long.parseUnsignedLong(fingerprint, 16));
+            
+            // One chunk more than the pool can work on, so a full buffer always
+            // yields a full batch even though the tail is carried over.
+            byte[] buffer = new byte[Math.toIntExact((long) (pool.getParallelism() + 1) * chunkSize)];
+            int period = codec.period();
+            int keyIndex = 0;
+            int carried = 0;
+            long total = 0;
+            boolean endOfInput = false;
+            
+            while (!endOfInput) {
+                int filled = carried + fill(source, buffer, carried);
+                endOfInput = filled < buffer.length;
+                
+                List<Chunk> chunks = split(buffer, filled, endOfInput, codec.isText());
+                if (period > 1 && codec.isText()) {
+                    runAll(chunks, new ChunkAction() {
+                        public void run(Chunk chunk) throws IOException {
+                            chunk.advance = codec.advance(chunk);
+                        }
+                    });
+                } else if (period > 1) {
+                    for (Chunk chunk : chunks) {
+                        chunk.advance = codec.advance(chunk);
+                    }
+                }
+                for (Chunk chunk : chunks) {
+                    chunk.keyIndex = keyIndex;
+                    keyIndex = (int) ((keyIndex + chunk.advance) % period);
+                }
+                runAll(chunks, new ChunkAction() {
+                    public void run(Chunk chunk) throws IOException {
+                        codec.transform(chunk);
+                        chunk.checksum();
+                    }
+                });
+                
+                int consumed = 0;
+                for (Chunk chunk : chunks) {
+                    writeChunk(target, chunk);
+                    consumed += chunk.length;
+                }
+                total += consumed;
+                carried = filled - consumed;
+                System.arraycopy(buffer, consumed, buffer, 0, carried);
+            }
+            
+            writeRecord(target, 0, 0, 0);
+            metrics.recordBytes(total, start);
+            return total;
+        } catch (IOException e) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.reasonFor(e));
+            throw e;
+        }
+    }
+    
+    private long decrypt(Path input, Path output, final Codec codec, String fingerprint) throws IOException {
+        AlgorithmMetrics metrics = CipherMetrics.getDefault().forAlgorithm(codec.algorithm());
+        long start = metrics.startBulk();
+        
+        try (FileChannel source = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            try {
+                Header header = readHeader(source);
+                checkKey(header, codec, fingerprint);
+                
+                int batch = pool.getParallelism();
+                ByteBuffer record = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+                long total = 0;
+                boolean ended = false;
+                
+                while (!ended) {
+                    List<Chunk> chunks = new ArrayList<Chunk>(batch);
+                    while (chunks.size() < batch) {
+                        long position = source.position();
+                        readRecord(source, record, position);
+                        int keyIndex = record.getInt();
+                        int length = record.getInt();
+                        int crc = record.getInt();
+                        if (length == 0) {
+                            ended = true;
+                            break;
+                        }
+                        checkLength(length, header.chunkSize, position);
+                        if (keyIndex < 0 || keyIndex >= codec.period()) {
+                            throw new InvalidContainerException(position, "Chunk key offset is out of range.");
+                        }
+                        
+                        byte[] data = new byte[length];
+                        readPayload(source, ByteBuffer.wrap(data), position);
+                        Chunk chunk = new Chunk(data, 0, length, position);
+                        chunk.keyIndex = keyIndex;
+                        chunk.expectedCrc = crc;
+                        chunks.add(chunk);
+                    }
+                    
+                    runAll(chunks, new ChunkAction() {
+                        public void run(Chunk chunk) throws IOException {
+                            if (chunk.checksumOfData() != chunk.expectedCrc) {
+                                throw new InvalidContainerException(chunk.position, "Chunk checksum does not match.");
+                            }
+                            codec.transform(chunk);
+                        }
+                    });
+                    
+                    for (Chunk chunk : chunks) {
+                        write(target, ByteBuffer.wrap(chunk.payload, chunk.payloadOffset, chunk.payloadLength));
+                        total += chunk.payloadLength;
+                    }
+                }
+                
+                metrics.recordBytes(total, start);
+                return total;
+            } catch (IOException e) {
+                target.truncate(0);
+                throw e;
+            }
+        } catch (IOException e) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.reasonFor(e));
+            throw e;
+        }
+    }
+    
+    private void checkKey(Header header, Codec codec, String fingerprint) throws InvalidContainerException {
+        CipherProvider provider = registry.getProvider(header.algorithmId);
+        if (provider == null || !provider.getName().equals(codec.algorithm())) {
+            String name = provider != null ? provider.getName() : "unknown cipher " + header.algorithmId;
+            throw new InvalidContainerException(0, "Container was encrypted with " + name + ", not "
+                    + codec.algorithm() + ".");
+        }
+        if (header.fingerprint != Long.parseUnsignedLong(fingerprint, 16)) {
+            throw new InvalidContainerException(0, "Container was encrypted with a different key.");
+        }
+    }
+    
+    /**
+     * Cuts buffer[0, filled) into chunks of at most chunkSize bytes. Text is
+     * cut before a UTF-8 lead byte, which needs the byte after the cut, so
+     * unless the input has ended the last partial chunk is left for the next
+     * buffer.
+     */
+    private List<Chunk> split(byte[] buffer, int filled, boolean endOfInput, boolean text) {
+        List<Chunk> chunks = new ArrayList<Chunk>();
+        int start = 0;
+        
+        while (start < filled) {
+            int end;
+            if (start + chunkSize < filled) {
+                end = start + chunkSize;
+                if (text) {
+                    int boundary = end;
+                    while (boundary > start && (buffer[boundary] & 0xC0) == 0x80) {
+                        boundary--;
+                    }
+                    if (boundary > start) {
+                        end = boundary;
+                    }
+                }
+            } else if (endOfInput) {
+                end = filled;
+            } else {
+                break;
+            }
+            
+            chunks.add(new Chunk(buffer, start, end - start, start));
+            start = end;
+        }
+        return chunks;
+    }
+    
+    /**
+     * Runs action on every chunk, on the pool when there is more than one.
+     */
+    private void runAll(List<Chunk> chunks, final ChunkAction action) throws IOException {
+        if (chunks.size() == 1) {
+            action.run(chunks.get(0));
+            return;
+        }
+        
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(chunks.size());
+        for (final Chunk chunk : chunks) {
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    try {
+                        action.run(chunk);
+                    } catch (IOException e) {
+                        chunk.failure = e;
+                    }
+                    return null;
+                }
+            });
+        }
+        
+        try {
+            for (Future<Void> result : pool.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while processing chunks.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        
+        // Report the first failing chunk in file order, whichever failed first.
+        for (Chunk chunk : chunks) {
+            if (chunk.failure != null) {
+                throw chunk.failure;
+            }
+        }
+    }
+    
+    private void writeHeader(FileChannel target, String id, long fingerprint) throws IOException {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        if (idBytes.length > 255) {
+            throw new IllegalArgumentException("Cipher id is too long for a container: " + id);
+        }
+        
+        ByteBuffer header = ByteBuffer.allocate(4 + 1 + 1 + idBytes.length + 8 + 4 + 4);
+        header.putInt(MAGIC).put((byte) VERSION).put((byte) idBytes.length).put(idBytes);
+        header.putLong(fingerprint).putInt(chunkSize);
+        CRC32C checksum = new CRC32C();
+        checksum.update(header.array(), 0, header.position());
+        header.putInt((int) checksum.getValue());
+        header.flip();
+        write(target, header);
+    }
+    
+    private static Header readHeader(FileChannel source) throws IOException {
+        ByteBuffer fixed = ByteBuffer.allocate(6);
+        if (!readFully(source, fixed) || fixed.getInt(0) != MAGIC) {
+            throw new InvalidContainerException(0, "Not a cipher container.");
+        }
+        if (fixed.get(4) != VERSION) {
+            throw new InvalidContainerException(0, "Unsupported container version " + fixed.get(4) + ".");
+        }
+        
+        ByteBuffer rest = ByteBuffer.allocate((fixed.get(5) & 0xFF) + 8 + 4 + 4);
+        if (!readFully(source, rest)) {
+            throw new InvalidContainerException(0, "Container header is truncated.");
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(fixed.array(), 0, fixed.capacity());
+        checksum.update(rest.array(), 0, rest.capacity() - 4);
+        
+        rest.flip();
+        byte[] id = new byte[fixed.get(5) & 0xFF];
+        rest.get(id);
+        long fingerprint = rest.getLong();
+        int chunkSize = rest.getInt();
+        if ((int) checksum.getValue() != rest.getInt()) {
+            throw new InvalidContainerException(0, "Container header checksum does not match.");
+        }
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new InvalidContainerException(0, "Container chunk size " + chunkSize + " is out of range.");
+        }
+        return new Header(new String(id, StandardCharsets.UTF_8), fingerprint, chunkSize);
+    }
+    
+    private static void writeChunk(FileChannel target, Chunk chunk) throws IOException {
+        writeRecord(target, chunk.keyIndex, chunk.payloadLength, chunk.crc);
+        write(target, ByteBuffer.wrap(chunk.payload, chunk.payloadOffset, chunk.payloadLength));
+    }
+    
+    private static void writeRecord(FileChannel target, int keyIndex, int length, int crc) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+        record.putInt(keyIndex).putInt(length).putInt(crc).flip();
+        write(target, record);
+    }
+    
+    private static void readRecord(FileChannel source, ByteBuffer record, long position) throws IOException {
+        record.clear();
+        if (!readFully(source, record)) {
+            throw new InvalidContainerException(position, "Container is truncated.");
+        }
+        record.flip();
+    }
+    
+    private static void readPayload(FileChannel source, ByteBuffer payload, long position) throws IOException {
+        if (!readFully(source, payload)) {
+            throw new InvalidContainerException(position, "Container is truncated.");
+        }
+    }
+    
+    private static void checkLength(int length, int chunkSize, long position) throws InvalidContainerException {
+        if (length < 0 || length > chunkSize) {
+            throw new InvalidContainerException(position, "Chunk length " + length + " is out of range.");
+        }
+    }
+    
+    private static boolean readFully(FileChannel source, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (source.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static int fill(FileChannel source, byte[] buffer, int offset) throws IOException {
+        ByteBuffer view = ByteBuffer.wrap(buffer, offset, buffer.length - offset);
+        while (view.hasRemaining() && source.read(view) >= 0) {
+        }
+        return view.position() - offset;
+    }
+    
+    private static void write(FileChannel target, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+    
+    /**
+     * A slice of input or container with its key position and, once
+     * transformed, its output.
+     */
+    private static final class Chunk {
+        final byte[] data;
+        final int offset;
+        final int length;
+        final long position;
+        long advance;
+        int keyIndex;
+        int expectedCrc;
+        char[] chars;
+        byte[] payload;
+        int payloadOffset;
+        int payloadLength;
+        int crc;
+        IOException failure;
+        
+        Chunk(byte[] data, int offset, int length, long position) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+            this.position = position;
+        }
+        
+        int checksumOfData() {
+            CRC32C checksum = new CRC32C();
+            checksum.update(data, offset, length);
+            return (int) checksum.getValue();
+        }
+        
+        void checksum() {
+            CRC32C checksum = new CRC32C();
+            checksum.update(payload, payloadOffset, payloadLength);
+            crc = (int) checksum.getValue();
+        }
+    }
+    
+    private interface ChunkAction {
+        void run(Chunk chunk) throws IOException;
+    }
+    
+    /**
+     * How one kind of key moves through a chunk: advance counts the key
+     * positions the chunk uses, transform encrypts it from chunk.keyIndex.
+     */
+    private abstract static class Codec {
+        abstract String algorithm();
+        
+        abstract int period();
+        
+        abstract boolean isText();
+        
+        abstract long advance(Chunk chunk) throws IOException;
+        
+        abstract void transform(Chunk chunk) throws IOException;
+    }
+    
+    /**
+     * Letter keys over UTF-8. ASCII chunks are shifted as bytes in place;
+     * others are decoded once, shifted as chars and encoded again.
+     */
+    private static final class TextCodec extends Codec {
+        private final CompiledKey key;
+        
+        TextCodec(CompiledKey key) {
+            this.key = key;
+        }
+        
+        String algorithm() {
+            return key.getAlgorithm();
+        }
+        
+        int period() {
+            return key.getPeriod();
+        }
+        
+        boolean isText() {
+            return true;
+        }
+        
+        long advance(Chunk chunk) throws IOException {
+            if (SubstitutionTable.isAscii(chunk.data, chunk.offset, chunk.length)) {
+                return SubstitutionTable.countAsciiLetters(chunk.data, chunk.offset, chunk.length);
+            }
+            chunk.chars = decode(chunk);
+            return SubstitutionTable.countLetters(chunk.chars, 0, chunk.chars.length);
+        }
+        
+        void transform(Chunk chunk) throws IOException {
+            if (chunk.chars == null && SubstitutionTable.isAscii(chunk.data, chunk.offset, chunk.length)) {
+                key.apply(chunk.data, chunk.offset, chunk.length, chunk.keyIndex);
+                chunk.payload = chunk.data;
+                chunk.payloadOffset = chunk.offset;
+                chunk.payloadLength = chunk.length;
+                return;
+            }
+            
+            char[] chars = chunk.chars != null ? chunk.chars : decode(chunk);
+            key.apply(chars, 0, chars.length, chunk.keyIndex);
+            ByteBuffer encoded = StandardCharsets.UTF_8.newEncoder().encode(CharBuffer.wrap(chars));
+            chunk.payload = encoded.array();
+            chunk.payloadOffset = encoded.arrayOffset() + encoded.position();
+            chunk.payloadLength = encoded.remaining();
+        }
+        
+        private static char[] decode(Chunk chunk) throws IOException {
+            CharBuffer decoded = StandardCharsets.UTF_8.newDecoder()
+                    .decode(ByteBuffer.wrap(chunk.data, chunk.offset, chunk.length));
+            char[] chars = new char[decoded.remaining()];
+            decoded.get(chars);
+            return chars;
+        }
+    }
+    
+    /**
+     * Byte keys, which advance on every byte and are applied in place.
+     */
+    private static final class ByteCodec extends Codec {
+        private final ByteKey key;
+        
+        ByteCodec(ByteKey key) {
+            this.key = key;
+        }
+        
+        String algorithm() {
+            return key.getAlgorithm();
+        }
+        
+        int period() {
+            return key.getPeriod();
+        }
+        
+        boolean isText() {
+            return false;
+        }
+        
+        long advance(Chunk chunk) {
+            return chunk.length;
+        }
+        
+        void transform(Chunk chunk) {
+            key.apply(chunk.data, chunk.offset, chunk.length, chunk.keyIndex);
+            chunk.payload = chunk.data;
+            chunk.payloadOffset = chunk.offset;
+            chunk.payloadLength = chunk.length;
+        }
+    }
+}
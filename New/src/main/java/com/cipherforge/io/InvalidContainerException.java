@@ -0,0 +1,22 @@
+package com.cipherforge.io;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a cipher container is damaged, truncated or was written with a
+ * different key. The offset is the position of the header or chunk at fault.
+ */
+public class InvalidContainerException extends IOException {
+    private static final long serialVersionUID = 1L;
+    
+    private final long offset;
+    
+    public InvalidContainerException(long offset, String reason) {
+        super(reason + " (container offset " + offset + ")");
+        this.offset = offset;
+    }
+    
+    public long getOffset() {
+        return offset;
+    }
+}
@@ -0,0 +1,187 @@
+package com.cipherforge.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.cipherforge.core.SubstitutionTable;
+
+/**
+ * A sparse index of how many letters precede each block of an ASCII file,
+ * one count per blockSize bytes. The key position at any offset is the letter
+ * count before it mod the key period, so with the index it can be found by
+ * scanning at most one block instead of the whole file.
+ *
+ * Letter-shifting ciphers map letters to letters and leave everything else
+ * alone, so a plaintext file and its ciphertext have the same index and
+ * either one can be used to build it. Like MappedFileEncryptor, only ASCII
+ * files are accepted.
+ */
+public final class LetterIndex {
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+    
+    private static final int MAGIC = 0x43464c49;
+    private static final int VERSION = 1;
+    
+    private final int blockSize;
+    private final long fileSize;
+    private final long[] lettersBefore;
+    
+    private LetterIndex(int blockSize, long fileSize, long[] lettersBefore) {
+        this.blockSize = blockSize;
+        this.fileSize = fileSize;
+        this.lettersBefore = lettersBefore;
+    }
+    
+    public static LetterIndex build(Path file) throws IOException {
+        return build(file, DEFAULT_BLOCK_SIZE);
+    }
+    
+    public static LetterIndex build(Path file, int blockSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return build(channel, blockSize);
+        }
+    }
+    
+    /**
+     * Scans channel once from the start, counting letters per block. Fails
+     * with NonAsciiFileException at the first byte of 0x80 or above.
+     */
+    public static LetterIndex build(FileChannel channel, int blockSize) throws IOException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        
+        long size = channel.size();
+        long blocks = (size + blockSize - 1) / blockSize;
+        if (blocks >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Block size " + blockSize + " is too small for " + size + " bytes.");
+        }
+        
+        long[] lettersBefore = new long[(int) blocks + 1];
+        ByteBuffer buffer = ByteBuffer.allocate(blockSize);
+        long total = 0;
+        
+        for (int block = 0; block < blocks; block++) {
+            long position = (long) block * blockSize;
+            int length = readFully(channel, buffer, position, (int) Math.min(blockSize, size - position));
+            checkAscii(buffer.array(), length, position);
+            total += SubstitutionTable.countAsciiLetters(buffer.array(), 0, length);
+            lettersBefore[block + 1] = total;
+        }
+        
+        return new LetterIndex(blockSize, size, lettersBefore);
+    }
+    
+    public int getBlockSize() {
+        return blockSize;
+    }
+    
+    public long getFileSize() {
+        return fileSize;
+    }
+    
+    public long getLetterCount() {
+        return lettersBefore[lettersBefore.length - 1];
+    }
+    
+    /**
+     * Counts the letters in channel before offset, reading only the part of
+     * offset's block that precedes it.
+     */
+    public long lettersBefore(FileChannel channel, long offset) throws IOException {
+        if (offset < 0 || offset > fileSize) {
+            throw new IllegalArgumentException("Offset " + offset + " is outside a file of " + fileSize + " bytes.");
+        }
+        
+        int block = (int) (offset / blockSize);
+        long blockStart = (long) block * blockSize;
+        int length = (int) (offset - blockStart);
+        if (length == 0) {
+            return lettersBefore[block];
+        }
+        
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(channel, buffer, blockStart, length);
+        return lettersBefore[block] + SubstitutionTable.countAsciiLetters(buffer.array(), 0, length);
+    }
+    
+    /**
+     * Returns the key index for the byte at offset under a key of the given
+     * period.
+     */
+    public int keyIndexAt(FileChannel channel, long offset, int period) throws IOException {
+        if (period == 1) {
+            return 0;
+        }
+        return (int) (lettersBefore(channel, offset) % period);
+    }
+    
+    /**
+     * Saves the index as per-block counts, 4 bytes per block (about 64 KB per
+     * GB of file at the default block size).
+     */
+    public void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(blockSize);
+            out.writeLong(fileSize);
+            for (int block = 1; block < lettersBefore.length; block++) {
+                out.writeInt((int) (lettersBefore[block] - lettersBefore[block - 1]));
+            }
+        }
+    }
+    
+    public static LetterIndex read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " is not a letter index.");
+            }
+            
+            int blockSize = in.readInt();
+            long fileSize = in.readLong();
+            if (blockSize <= 0 || fileSize < 0) {
+                throw new IOException(file + " is damaged.");
+            }
+            
+            long blocks = (fileSize + blockSize - 1) / blockSize;
+            if (blocks >= Integer.MAX_VALUE) {
+                throw new IOException(file + " is damaged.");
+            }
+            
+            long[] lettersBefore = new long[(int) blocks + 1];
+            for (int block = 0; block < blocks; block++) {
+                lettersBefore[block + 1] = lettersBefore[block] + in.readInt();
+            }
+            return new LetterIndex(blockSize, fileSize, lettersBefore);
+        }
+    }
+    
+    static int readFully(FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("File ended at " + (position + buffer.position())
+                        + "; it has changed since it was indexed.");
+            }
+        }
+        buffer.flip();
+        return length;
+    }
+    
+    private static void checkAscii(byte[] buffer, int length, long position) throws NonAsciiFileException {
+        for (int i = 0; i < length; i++) {
+            if (buffer[i] < 0) {
+                throw new NonAsciiFileException(position + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.cipherforge.io;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.cipherforge.core.ByteKey;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.core.SubstitutionTable;
+import com.cipherforge.metrics.AlgorithmMetrics;
+import com.cipherforge.metrics.CipherMetrics;
+
+/**
+ * Encrypts ASCII files through memory-mapped windows instead of heap strings.
+ * Each window is transformed through a small fixed scratch buffer and the key
+ * index is carried from one window to the next, so heap use does not depend on
+ * file size and paging is left to the kernel.
+ *
+ * Only ASCII input is accepted: non-ASCII letters change their UTF-8 length
+ * when encrypted, which cannot be done in place. Such files fail with
+ * NonAsciiFileException and should go through the streaming Reader/Writer path.
+ * The ByteKey overloads have no such restriction: byte ciphers keep every
+ * byte's length, so any file is shifted directly in the mapped windows.
+ */
+public class MappedFileEncryptor {
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final int SCRATCH_SIZE = 64 * 1024;
+    
+    private final int windowSize;
+    
+    public MappedFileEncryptor() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+    
+    public MappedFileEncryptor(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        this.windowSize = windowSize;
+    }
+    
+    /**
+     * Encrypts file in place. The whole file is checked for non-ASCII bytes
+     * before anything is written, so a rejected file is left untouched.
+     * Returns the number of bytes processed.
+     */
+    public long encryptInPlace(Path file, CompiledKey key) throws IOException {
+        AlgorithmMetrics metrics = CipherMetrics.getDefault().forAlgorithm(key.getAlgorithm());
+        long start = metrics.startBulk();
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            byte[] scratch = new byte[SCRATCH_SIZE];
+            
+            for (long position = 0; position < size; position += windowSize) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowLength(position, size));
+                checkAscii(window, scratch, position);
+            }
+            
+            int keyIndex = 0;
+            for (long position = 0; position < size; position += windowSize) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_WRITE, position, windowLength(position, size));
+                keyIndex = transform(window, window, scratch, key, keyIndex, position);
+            }
+            
+            metrics.recordBytes(size, start);
+            return size;
+        } catch (IOException e) {
+            recordFailure(e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Encrypts input into output, which is created or truncated and pre-sized
+     * to the input length. If input turns out not to be ASCII the partial
+     * output is truncated to zero before the exception is thrown. Input and
+     * output must be different files; use encryptInPlace for that case.
+     */
+    public long encrypt(Path input, Path output, CompiledKey key) throws IOException {
+        AlgorithmMetrics metrics = CipherMetrics.getDefault().forAlgorithm(key.getAlgorithm());
+        long start = metrics.startBulk();
+        
+        checkDistinct(input, output);
+        
+        try (FileChannel source = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = source.size();
+            try (FileChannel target = openTarget(output)) {
+                byte[] scratch = new byte[SCRATCH_SIZE];
+                int keyIndex = 0;
+                
+                try {
+                    for (long position = 0; position < size; position += windowSize) {
+                        long length = windowLength(position, size);
+                        MappedByteBuffer from = source.map(FileChannel.MapMode.READ_ONLY, position, length);
+                        MappedByteBuffer to = target.map(FileChannel.MapMode.READ_WRITE, position, length);
+                        keyIndex = transform(from, to, scratch, key, keyIndex, position);
+                    }
+                } catch (NonAsciiFileException e) {
+                    target.truncate(0);
+                    throw e;
+                }
+                
+                metrics.recordBytes(size, start);
+                return size;
+            }
+        } catch (IOException e) {
+            recordFailure(e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Encrypts file in place with a byte cipher key. Any content is accepted.
+     * Returns the number of bytes processed.
+     */
+    public long encryptInPlace(Path file, ByteKey key) throws IOException {
+        AlgorithmMetrics metrics = CipherMetrics.getDefault().forAlgorithm(key.getAlgorithm());
+        long start = metrics.startBulk();
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            int keyIndex = 0;
+            
+            for (long position = 0; position < size; position += windowSize) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_WRITE, position, windowLength(position, size));
+                keyIndex = key.apply(window, keyIndex);
+            }
+            
+            metrics.recordBytes(size, start);
+            return size;
+        } catch (IOException e) {
+            recordFailure(e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Encrypts input into output with a byte cipher key. Each window is copied
+     * into the mapped output and shifted there, with no intermediate buffer.
+     * Input and output must be different files.
+     */
+    public long encrypt(Path input, Path output, ByteKey key) throws IOException {
+        AlgorithmMetrics metrics = CipherMetrics.getDefault().forAlgorithm(key.getAlgorithm());
+        long start = metrics.startBulk();
+        
+        checkDistinct(input, output);
+        
+        try (FileChannel source = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = source.size();
+            try (FileChannel target = openTarget(output)) {
+                int keyIndex = 0;
+                
+                for (long position = 0; position < size; position += windowSize) {
+                    long length = windowLength(position, size);
+                    MappedByteBuffer from = source.map(FileChannel.MapMode.READ_ONLY, position, length);
+                    MappedByteBuffer to = target.map(FileChannel.MapMode.READ_WRITE, position, length);
+                    to.put(from);
+                    to.flip();
+                    keyIndex = key.apply(to, keyIndex);
+                }
+                
+                metrics.recordBytes(size, start);
+                return size;
+            }
+        } catch (IOException e) {
+            recordFailure(e);
+            throw e;
+        }
+    }
+    
+    private static void checkDistinct(Path input, Path output) throws IOException {
+        if (Files.exists(output) && Files.isSameFile(input, output)) {
+            throw new IllegalArgumentException("Input and output are the same file: " + output);
+        }
+    }
+    
+    private static FileChannel openTarget(Path output) throws IOException {
+        return FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+    
+    private static void recordFailure(IOException e) {
+        CipherMetrics.getDefault().recordFailure(
+                e instanceof NonAsciiFileException ? CipherMetrics.NON_ASCII : CipherMetrics.reasonFor(e));
+    }
+    
+    private long windowLength(long position, long size) {
+        return Math.min(windowSize, size - position);
+    }
+    
+    private static int transform(MappedByteBuffer from, MappedByteBuffer to, byte[] scratch, CompiledKey key,
+            int keyIndex, long windowStart) throws NonAsciiFileException {
+        while (from.hasRemaining()) {
+            int offset = from.position();
+            int count = Math.min(scratch.length, from.remaining());
+            from.get(scratch, 0, count);
+            
+            if (!SubstitutionTable.isAscii(scratch, 0, count)) {
+                throw new NonAsciiFileException(windowStart + offset + firstNonAscii(scratch, count));
+            }
+            
+            keyIndex = key.apply(scratch, 0, count, keyIndex);
+            to.position(offset);
+            to.put(scratch, 0, count);
+        }
+        return keyIndex;
+    }
+    
+    private static void checkAscii(MappedByteBuffer window, byte[] scratch, long windowStart)
+            throws NonAsciiFileException {
+        while (window.hasRemaining()) {
+            int offset = window.position();
+            int count = Math.min(scratch.length, window.remaining());
+            window.get(scratch, 0, count);
+            
+            if (!SubstitutionTable.isAscii(scratch, 0, count)) {
+                throw new NonAsciiFileException(windowStart + offset + firstNonAscii(scratch, count));
+            }
+        }
+    }
+    
+    private static int firstNonAscii(byte[] buffer, int count) {
+        for (int i = 0; i < count; i++) {
+            if (buffer[i] < 0) {
+                return i;
+            }
+        }
+        return count;
+    }
+}
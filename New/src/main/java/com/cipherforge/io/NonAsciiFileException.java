@@ -0,0 +1,18 @@
+package com.cipherforge.io;
+
+import java.io.IOException;
+
+public class NonAsciiFileException extends IOException {
+    private static final long serialVersionUID = 1L;
+    
+    private final long offset;
+    
+    public NonAsciiFileException(long offset) {
+        super("File contains a non-ASCII byte at offset " + offset + ".");
+        this.offset = offset;
+    }
+    
+    public long getOffset() {
+        return offset;
+    }
+}
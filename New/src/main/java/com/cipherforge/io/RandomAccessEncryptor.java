@@ -0,0 +1,163 @@
+package com.cipherforge.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.cipherforge.core.ByteKey;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.metrics.AlgorithmMetrics;
+import com.cipherforge.metrics.CipherMetrics;
+
+/**
+ * Encrypts or decrypts any byte range of an ASCII file without replaying the
+ * file from the start. The key position at the range start comes from a
+ * LetterIndex, so a range costs its own length plus at most one index block.
+ *
+ * All reads are positional, so one instance can serve ranges from many
+ * threads at once. The file is expected not to change while it is open; a
+ * file whose size no longer matches the index is rejected.
+ *
+ * Byte cipher keys advance on every byte, so for them the key position is
+ * simply the offset mod the period and the index is not needed. It is built
+ * on the first letter key call, so byte keys work on any file, binary or not.
+ */
+public class RandomAccessEncryptor implements Closeable {
+    private final FileChannel channel;
+    private final long fileSize;
+    private volatile LetterIndex index;
+    
+    /**
+     * Opens file. Its index is built with the default block size on the first
+     * call that takes a CompiledKey, which fails with NonAsciiFileException if
+     * the file is not ASCII.
+     */
+    public RandomAccessEncryptor(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.fileSize = channel.size();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Opens file with an index built earlier, e.g. one loaded with
+     * LetterIndex.read.
+     */
+    public RandomAccessEncryptor(Path file, LetterIndex index) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.index = index;
+        this.fileSize = index.getFileSize();
+        if (channel.size() != fileSize) {
+            long size = channel.size();
+            channel.close();
+            throw new IllegalArgumentException("Index was built for " + index.getFileSize() + " bytes but " + file
+                    + " has " + size + ".");
+        }
+    }
+    
+    /**
+     * Returns the file's index, building it first if no CompiledKey call has
+     * needed it yet.
+     */
+    public LetterIndex getIndex() throws IOException {
+        LetterIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = LetterIndex.build(channel, LetterIndex.DEFAULT_BLOCK_SIZE);
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+    
+    public long size() {
+        return fileSize;
+    }
+    
+    /**
+     * Reads [offset, offset + length) of the file and returns it encrypted
+     * with key, exactly as those bytes appear when the whole file is
+     * encrypted from the start.
+     */
+    public byte[] encrypt(long offset, int length, CompiledKey key) throws IOException {
+        AlgorithmMetrics metrics = CipherMetrics.getDefault().forAlgorithm(key.getAlgorithm());
+        long start = metrics.startBulk();
+        
+        try {
+            byte[] range = read(offset, length);
+            key.apply(range, 0, length, getIndex().keyIndexAt(channel, offset, key.getPeriod()));
+            metrics.recordBytes(length, start);
+            return range;
+        } catch (IOException e) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.reasonFor(e));
+            throw e;
+        }
+    }
+    
+    /**
+     * Reads [offset, offset + length) of an encrypted file and returns it
+     * decrypted with key.
+     */
+    public byte[] decrypt(long offset, int length, CompiledKey key) throws IOException {
+        return encrypt(offset, length, key.inverse());
+    }
+    
+    public byte[] encrypt(long offset, int length, ByteKey key) throws IOException {
+        AlgorithmMetrics metrics = CipherMetrics.getDefault().forAlgorithm(key.getAlgorithm());
+        long start = metrics.startBulk();
+        
+        try {
+            byte[] range = read(offset, length);
+            key.apply(range, 0, length, (int) (offset % key.getPeriod()));
+            metrics.recordBytes(length, start);
+            return range;
+        } catch (IOException e) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.reasonFor(e));
+            throw e;
+        }
+    }
+    
+    public byte[] decrypt(long offset, int length, ByteKey key) throws IOException {
+        return encrypt(offset, length, key.inverse());
+    }
+    
+    /**
+     * Encrypts buffer[bufferOffset, bufferOffset + length) in place as the
+     * bytes at file offset would be, e.g. to re-encrypt a patched range.
+     * Only the letter count before offset is taken from the file, so the
+     * patch must keep the file's letters where they were for the rest of
+     * the output to stay valid.
+     */
+    public void apply(long offset, byte[] buffer, int bufferOffset, int length, CompiledKey key) throws IOException {
+        checkRange(offset, length);
+        key.apply(buffer, bufferOffset, length, getIndex().keyIndexAt(channel, offset, key.getPeriod()));
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+    
+    private byte[] read(long offset, int length) throws IOException {
+        checkRange(offset, length);
+        byte[] range = new byte[length];
+        LetterIndex.readFully(channel, ByteBuffer.wrap(range), offset, length);
+        return range;
+    }
+    
+    private void checkRange(long offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > fileSize) {
+            throw new IllegalArgumentException("Range " + offset + "+" + length + " is outside a file of "
+                    + fileSize + " bytes.");
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.cipherforge.metrics;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for one algorithm. Every operation is counted; only one in
+ * CipherMetrics.SAMPLE_RATE short operations is timed, because two
+ * System.nanoTime calls cost more than encrypting a short message.
+ *
+ * Counts are kept per thread with plain single-writer stores, since even an
+ * uncontended LongAdder CAS is a noticeable share of a 16-char encryption.
+ * Readers sum the live threads' counters plus those folded in from threads
+ * that have ended, so a read racing with recording may be slightly stale.
+ * Typical use:
+ *
+ *     long start = metrics.start();
+ *     ... encrypt length chars ...
+ *     metrics.recordChars(length, start);
+ *
+ * Text paths count chars and file, buffer and byte cipher paths count bytes,
+ * in separate counters: a non-ASCII char is several UTF-8 bytes, so the two
+ * cannot be added up.
+ */
+public final class AlgorithmMetrics implements AlgorithmMetricsMXBean {
+    static final long NOT_SAMPLED = Long.MIN_VALUE;
+    
+    // Each thread's three counters have 64 bytes of unused array on either
+    // side, so no other thread's counters can share their cache line.
+    private static final int OPERATIONS = 8;
+    private static final int CHARS = 9;
+    private static final int BYTES = 10;
+    private static final int PADDED_LENGTH = 19;
+    private static final int RETIRE_INTERVAL = 64;
+    
+    private final String algorithm;
+    private final Queue<Recorder> recorders = new ConcurrentLinkedQueue<Recorder>();
+    private final AtomicInteger registrations = new AtomicInteger();
+    private final LongAdder retiredOperations = new LongAdder();
+    private final LongAdder retiredChars = new LongAdder();
+    private final LongAdder retiredBytes = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final ThreadLocal<Recorder> threadRecorder = new ThreadLocal<Recorder>() {
+        @Override
+        protected Recorder initialValue() {
+            return register();
+        }
+    };
+    
+    AlgorithmMetrics(String algorithm) {
+        this.algorithm = algorithm;
+    }
+    
+    /**
+     * Marks the start of an operation and returns the token to pass to record.
+     */
+    public long start() {
+        if (CipherMetrics.ENABLED
+                && (ThreadLocalRandom.current().nextInt() & (CipherMetrics.SAMPLE_RATE - 1)) == 0) {
+            return System.nanoTime();
+        }
+        return NOT_SAMPLED;
+    }
+    
+    /**
+     * Like start, but always timed. For stream and file operations, where two
+     * clock reads are negligible next to the work itself.
+     */
+    public long startBulk() {
+        return CipherMetrics.ENABLED ? System.nanoTime() : NOT_SAMPLED;
+    }
+    
+    /**
+     * Counts one completed operation over length chars of text.
+     */
+    public void recordChars(long length, long start) {
+        record(CHARS, length, start);
+    }
+    
+    /**
+     * Counts one completed operation over length bytes of a file, buffer or
+     * byte cipher input.
+     */
+    public void recordBytes(long length, long start) {
+        record(BYTES, length, start);
+    }
+    
+    private void record(int counter, long length, long start) {
+        if (!CipherMetrics.ENABLED) {
+            return;
+        }
+        
+        threadRecorder.get().add(counter, length);
+        if (start != NOT_SAMPLED) {
+            latency.record(System.nanoTime() - start);
+        }
+    }
+    
+    @Override
+    public String getAlgorithm() {
+        return algorithm;
+    }
+    
+    @Override
+    public long getOperations() {
+        return sum(OPERATIONS) + retiredOperations.sum();
+    }
+    
+    /**
+     * Chars of text input summed over all text operations.
+     */
+    @Override
+    public long getCharsProcessed() {
+        return sum(CHARS) + retiredChars.sum();
+    }
+    
+    /**
+     * Bytes of input summed over all file, buffer and byte cipher operations.
+     */
+    @Override
+    public long getBytesProcessed() {
+        return sum(BYTES) + retiredBytes.sum();
+    }
+    
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency.snapshot();
+    }
+    
+    @Override
+    public long getLatencySamples() {
+        return latency.snapshot().getCount();
+    }
+    
+    @Override
+    public double getMeanLatencyNanos() {
+        return latency.snapshot().getMean();
+    }
+    
+    @Override
+    public long getP50LatencyNanos() {
+        return latency.snapshot().getValueAtPercentile(50);
+    }
+    
+    @Override
+    public long getP99LatencyNanos() {
+        return latency.snapshot().getValueAtPercentile(99);
+    }
+    
+    @Override
+    public long getP999LatencyNanos() {
+        return latency.snapshot().getValueAtPercentile(99.9);
+    }
+    
+    @Override
+    public long getMaxLatencyNanos() {
+        return latency.snapshot().getMax();
+    }
+    
+    private long sum(int counter) {
+        long total = 0;
+        for (Recorder recorder : recorders) {
+            total += recorder.counts.get(counter);
+        }
+        return total;
+    }
+    
+    private Recorder register() {
+        Recorder recorder = new Recorder(Thread.currentThread());
+        recorders.offer(recorder);
+        if (registrations.incrementAndGet() % RETIRE_INTERVAL == 0) {
+            retireEndedThreads();
+        }
+        return recorder;
+    }
+    
+    /**
+     * Folds the counters of threads that have ended into the retired totals,
+     * so short-lived (e.g. virtual) threads do not accumulate recorders.
+     */
+    private void retireEndedThreads() {
+        Iterator<Recorder> iterator = recorders.iterator();
+        while (iterator.hasNext()) {
+            Recorder recorder = iterator.next();
+            if (!recorder.isOwnerAlive() && recorders.remove(recorder)) {
+                retiredOperations.add(recorder.counts.get(OPERATIONS));
+                retiredChars.add(recorder.counts.get(CHARS));
+                retiredBytes.add(recorder.counts.get(BYTES));
+            }
+        }
+    }
+    
+    /**
+     * One thread's counters. Only the owner writes, so lazySet (a plain store
+     * on x86) is enough to publish them to readers.
+     */
+    private static final class Recorder {
+        final AtomicLongArray counts = new AtomicLongArray(PADDED_LENGTH);
+        final WeakReference<Thread> owner;
+        
+        Recorder(Thread owner) {
+            this.owner = new WeakReference<Thread>(owner);
+        }
+        
+        void add(int counter, long length) {
+            counts.lazySet(OPERATIONS, counts.get(OPERATIONS) + 1);
+            counts.lazySet(counter, counts.get(counter) + length);
+        }
+        
+        boolean isOwnerAlive() {
+            Thread thread = owner.get();
+            return thread != null && thread.isAlive();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.cipherforge.metrics;
+
+/**
+ * JMX view of one algorithm's counters. Latencies are in nanoseconds and come
+ * from the sampled operations only.
+ */
+public interface AlgorithmMetricsMXBean {
+    String getAlgorithm();
+    
+    long getOperations();
+    
+    long getCharsProcessed();
+    
+    long getBytesProcessed();
+    
+    long getLatencySamples();
+    
+    double getMeanLatencyNanos();
+    
+    long getP50LatencyNanos();
+    
+    long getP99LatencyNanos();
+    
+    long getP999LatencyNanos();
+    
+    long getMaxLatencyNanos();
+}
@@ -0,0 +1,331 @@
+package com.cipherforge.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.CharacterCodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.cipherforge.core.KeyCache;
+
+/**
+ * Process-wide operation metrics: per-algorithm counts, bytes and latency,
+ * failures by reason, interactive sessions and the default KeyCache's
+ * statistics. Recording is lock-free. Setting the cipherforge.metrics system
+ * property to false turns recording into a no-op the JIT removes entirely;
+ * cipherforge.metrics.sampleRate (a power of two, default 128) sets how many
+ * operations share one latency sample.
+ */
+public final class CipherMetrics implements CipherMetricsMXBean {
+    public static final String ENABLED_PROPERTY = "cipherforge.metrics";
+    public static final String SAMPLE_RATE_PROPERTY = "cipherforge.metrics.sampleRate";
+    public static final String JMX_DOMAIN = "com.cipherforge";
+    
+    public static final String INVALID_KEY = "invalid-key";
+    public static final String UNKNOWN_ALGORITHM = "unknown-algorithm";
+    public static final String MALFORMED_INPUT = "malformed-input";
+    public static final String NON_ASCII = "non-ascii";
+    public static final String IO_ERROR = "io-error";
+    public static final String UNEXPECTED = "unexpected";
+    
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY));
+    static final int SAMPLE_RATE = sampleRate(Integer.getInteger(SAMPLE_RATE_PROPERTY, 128));
+    
+    private static volatile CipherMetrics defaultMetrics;
+    
+    private final ConcurrentHashMap<String, AlgorithmMetrics> algorithms = new ConcurrentHashMap<String, AlgorithmMetrics>();
+    private final ConcurrentHashMap<String, LongAdder> failures = new ConcurrentHashMap<String, LongAdder>();
+    private final LongAdder sessions = new LongAdder();
+    private final long startMillis = System.currentTimeMillis();
+    private volatile MBeanServer mbeanServer;
+    
+    public static CipherMetrics getDefault() {
+        CipherMetrics metrics = defaultMetrics;
+        if (metrics == null) {
+            synchronized (CipherMetrics.class) {
+                metrics = defaultMetrics;
+                if (metrics == null) {
+                    metrics = new CipherMetrics();
+                    defaultMetrics = metrics;
+                }
+            }
+        }
+        return metrics;
+    }
+    
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+    
+    /**
+     * Returns the metrics for algorithm, creating them on first use. Callers on
+     * a hot path should look this up once and keep the reference.
+     */
+    public AlgorithmMetrics forAlgorithm(String algorithm) {
+        AlgorithmMetrics metrics = algorithms.get(algorithm);
+        if (metrics != null) {
+            return metrics;
+        }
+        
+        AlgorithmMetrics created = new AlgorithmMetrics(algorithm);
+        metrics = algorithms.putIfAbsent(algorithm, created);
+        if (metrics != null) {
+            return metrics;
+        }
+        
+        MBeanServer server = mbeanServer;
+        if (server != null) {
+            register(server, created, algorithmName(algorithm));
+        }
+        return created;
+    }
+    
+    public void recordFailure(String reason) {
+        if (!ENABLED) {
+            return;
+        }
+        
+        LongAdder counter = failures.get(reason);
+        if (counter == null) {
+            LongAdder created = new LongAdder();
+            counter = failures.putIfAbsent(reason, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        counter.increment();
+    }
+    
+    /**
+     * Maps an exception from an encryption operation to a failure reason.
+     */
+    public static String reasonFor(Throwable failure) {
+        if (failure instanceof CharacterCodingException) {
+            return MALFORMED_INPUT;
+        }
+        if (failure instanceof IOException) {
+            return IO_ERROR;
+        }
+        return UNEXPECTED;
+    }
+    
+    public void recordSession() {
+        if (ENABLED) {
+            sessions.increment();
+        }
+    }
+    
+    @Override
+    public long getSessions() {
+        return sessions.sum();
+    }
+    
+    @Override
+    public Map<String, Long> getFailures() {
+        Map<String, Long> counts = new TreeMap<String, Long>();
+        for (Map.Entry<String, LongAdder> entry : failures.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return counts;
+    }
+    
+    /**
+     * Returns the metrics of every algorithm instantiated so far, sorted by
+     * name. Dumps leave out the ones with no operations.
+     */
+    public List<AlgorithmMetrics> getAlgorithms() {
+        List<String> names = new ArrayList<String>(algorithms.keySet());
+        Collections.sort(names);
+        
+        List<AlgorithmMetrics> sorted = new ArrayList<AlgorithmMetrics>(names.size());
+        for (String name : names) {
+            sorted.add(algorithms.get(name));
+        }
+        return sorted;
+    }
+    
+    @Override
+    public int getKeyCacheSize() {
+        return KeyCache.getDefault().size();
+    }
+    
+    @Override
+    public long getKeyCacheHits() {
+        return KeyCache.getDefault().getHits();
+    }
+    
+    @Override
+    public long getKeyCacheMisses() {
+        return KeyCache.getDefault().getMisses();
+    }
+    
+    @Override
+    public long getKeyCacheEvictions() {
+        return KeyCache.getDefault().getEvictions();
+    }
+    
+    @Override
+    public double getKeyCacheHitRate() {
+        return KeyCache.getDefault().getHitRate();
+    }
+    
+    /**
+     * Publishes these metrics on the platform MBean server under the
+     * com.cipherforge domain. Algorithms first used later are registered as
+     * they appear. Calling this more than once has no further effect.
+     */
+    public synchronized void registerMBeans() {
+        if (mbeanServer != null) {
+            return;
+        }
+        
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        register(server, this, name("type=CipherMetrics"));
+        mbeanServer = server;
+        
+        for (AlgorithmMetrics metrics : algorithms.values()) {
+            register(server, metrics, algorithmName(metrics.getAlgorithm()));
+        }
+    }
+    
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append("Cipher metrics (uptime ").append((System.currentTimeMillis() - startMillis) / 1000)
+                .append("s, sessions ").append(getSessions()).append(")\n");
+                
+        for (AlgorithmMetrics metrics : getAlgorithms()) {
+            if (metrics.getOperations() == 0) {
+                continue;
+            }
+            LatencyHistogram.Snapshot latency = metrics.getLatency();
+            text.append(String.format(Locale.ROOT,
+                    "  %s: operations=%d chars=%d bytes=%d latency p50=%dns p99=%dns p99.9=%dns max=%dns (%d samples)\n",
+                    metrics.getAlgorithm(), metrics.getOperations(), metrics.getCharsProcessed(),
+                    metrics.getBytesProcessed(),
+                    latency.getValueAtPercentile(50), latency.getValueAtPercentile(99),
+                    latency.getValueAtPercentile(99.9), latency.getMax(), latency.getCount()));
+        }
+        
+        text.append("  failures:");
+        Map<String, Long> failureCounts = getFailures();
+        if (failureCounts.isEmpty()) {
+            text.append(" none");
+        }
+        for (Map.Entry<String, Long> entry : failureCounts.entrySet()) {
+            text.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        text.append('\n');
+        
+        text.append("  ").append(KeyCache.getDefault()).append('\n');
+        return text.toString();
+    }
+    
+    @Override
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"uptimeMillis\":").append(System.currentTimeMillis() - startMillis);
+        json.append(",\"sessions\":").append(getSessions());
+        
+        json.append(",\"algorithms\":{");
+        boolean first = true;
+        for (AlgorithmMetrics metrics : getAlgorithms()) {
+            if (metrics.getOperations() == 0) {
+                continue;
+            }
+            LatencyHistogram.Snapshot latency = metrics.getLatency();
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            quote(json, metrics.getAlgorithm());
+            json.append(":{\"operations\":").append(metrics.getOperations());
+            json.append(",\"chars\":").append(metrics.getCharsProcessed());
+            json.append(",\"bytes\":").append(metrics.getBytesProcessed());
+            json.append(",\"latencyNanos\":{\"samples\":").append(latency.getCount());
+            json.append(",\"mean\":").append(Math.round(latency.getMean()));
+            json.append(",\"p50\":").append(latency.getValueAtPercentile(50));
+            json.append(",\"p90\":").append(latency.getValueAtPercentile(90));
+            json.append(",\"p99\":").append(latency.getValueAtPercentile(99));
+            json.append(",\"p999\":").append(latency.getValueAtPercentile(99.9));
+            json.append(",\"max\":").append(latency.getMax()).append("}}");
+        }
+        json.append('}');
+        
+        json.append(",\"failures\":{");
+        first = true;
+        for (Map.Entry<String, Long> entry : getFailures().entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            quote(json, entry.getKey());
+            json.append(':').append(entry.getValue());
+        }
+        json.append('}');
+        
+        KeyCache cache = KeyCache.getDefault();
+        json.append(",\"keyCache\":{\"size\":").append(cache.size());
+        json.append(",\"capacity\":").append(cache.getCapacity());
+        json.append(",\"hits\":").append(cache.getHits());
+        json.append(",\"misses\":").append(cache.getMisses());
+        json.append(",\"evictions\":").append(cache.getEvictions());
+        json.append(",\"hitRate\":").append(String.format(Locale.ROOT, "%.4f", cache.getHitRate()));
+        json.append("}}");
+        return json.toString();
+    }
+    
+    private static void quote(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                json.append('\\').append(ch);
+            } else if (ch < 0x20) {
+                json.append(String.format("\\u%04x", (int) ch));
+            } else {
+                json.append(ch);
+            }
+        }
+        json.append('"');
+    }
+    
+    private static ObjectName algorithmName(String algorithm) {
+        return name("type=AlgorithmMetrics,name=" + ObjectName.quote(algorithm));
+    }
+    
+    private static ObjectName name(String properties) {
+        try {
+            return new ObjectName(JMX_DOMAIN + ":" + properties);
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Invalid MBean name: " + properties, e);
+        }
+    }
+    
+    private static void register(MBeanServer server, Object mbean, ObjectName name) {
+        try {
+            server.registerMBean(mbean, name);
+        } catch (InstanceAlreadyExistsException e) {
+            // Registered by a concurrent forAlgorithm call; nothing to do.
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register MBean " + name, e);
+        }
+    }
+    
+    private static int sampleRate(int requested) {
+        if (requested <= 1) {
+            return 1;
+        }
+        return Integer.highestOneBit(requested - 1) << 1;
+    }
+}
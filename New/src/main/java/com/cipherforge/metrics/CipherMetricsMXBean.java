@@ -0,0 +1,25 @@
+package com.cipherforge.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the process-wide counters. Per-algorithm figures are published
+ * as separate AlgorithmMetricsMXBean instances.
+ */
+public interface CipherMetricsMXBean {
+    long getSessions();
+    
+    Map<String, Long> getFailures();
+    
+    int getKeyCacheSize();
+    
+    long getKeyCacheHits();
+    
+    long getKeyCacheMisses();
+    
+    long getKeyCacheEvictions();
+    
+    double getKeyCacheHitRate();
+    
+    String toJson();
+}
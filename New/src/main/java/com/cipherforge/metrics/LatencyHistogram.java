@@ -0,0 +1,117 @@
+package com.cipherforge.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram of non-negative values, in the style of
+ * HdrHistogram. Values below 32 are counted exactly; above that each power of
+ * two is split into 32 equal buckets, so a reported value is within about 3%
+ * of the recorded one. Recording takes a few atomic operations and never
+ * allocates. Snapshots are not atomic with respect to concurrent recording,
+ * which is fine for monitoring.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+    
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        
+        counts.getAndIncrement(bucketIndex(value));
+        total.add(value);
+        
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+    
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, total.sum(), max.get());
+    }
+    
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+    
+    /**
+     * Returns the largest value that falls into bucket index.
+     */
+    static long highestValueIn(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return ((SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+    }
+    
+    /**
+     * A point-in-time copy of the histogram.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+        
+        Snapshot(long[] counts, long count, long total, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        public long getMax() {
+            return max;
+        }
+        
+        public double getMean() {
+            return count == 0 ? 0.0 : (double) total / count;
+        }
+        
+        /**
+         * Returns the value at or below which percentile percent of the
+         * recorded values fall, e.g. getValueAtPercentile(99.9).
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            
+            long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueIn(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
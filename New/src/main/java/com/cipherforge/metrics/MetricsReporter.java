@@ -0,0 +1,79 @@
+package com.cipherforge.metrics;
+
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.cipherforge.parallel.IoExecutors;
+
+/**
+ * Periodically writes a CipherMetrics dump, as text or as one JSON object per
+ * line, to a stream. Runs on a single daemon thread, so an unclosed reporter
+ * never keeps the JVM alive.
+ */
+public class MetricsReporter implements AutoCloseable {
+    public enum Format {
+        TEXT, JSON;
+        
+        /**
+         * Parses "text" or "json", ignoring case.
+         */
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Metrics format must be text or json: " + value);
+        }
+    }
+    
+    private final CipherMetrics metrics;
+    private final PrintStream out;
+    private final Format format;
+    private ScheduledExecutorService scheduler;
+    
+    public MetricsReporter(CipherMetrics metrics, PrintStream out, Format format) {
+        this.metrics = metrics;
+        this.out = out;
+        this.format = format;
+    }
+    
+    /**
+     * Writes a dump every intervalMillis until close is called.
+     */
+    public synchronized void start(long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Report interval must be positive: " + intervalMillis);
+        }
+        if (scheduler != null) {
+            throw new IllegalStateException("Reporter already started.");
+        }
+        
+        scheduler = Executors.newSingleThreadScheduledExecutor(IoExecutors.daemonThreads("cipherforge-metrics"));
+        scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                report();
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    public void report() {
+        if (format == Format.JSON) {
+            out.println(metrics.toJson());
+        } else {
+            out.print(metrics.toText());
+        }
+        out.flush();
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.cipherforge.parallel;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for blocking I/O work. On a runtime with virtual threads (Java 21+)
+ * each task gets its own virtual thread; on older runtimes a fixed pool of
+ * daemon platform threads is used instead. Callers bound concurrency
+ * themselves, so the fallback pool size only needs to match that bound.
+ */
+public final class IoExecutors {
+    private IoExecutors() {
+    }
+    
+    public static ExecutorService newIoExecutor(String name, int platformThreads) {
+        ExecutorService virtual = newVirtualThreadExecutor();
+        if (virtual != null) {
+            return virtual;
+        }
+        return Executors.newFixedThreadPool(Math.max(1, platformThreads), daemonThreads(name));
+    }
+    
+    public static boolean hasVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+    
+    public static ThreadFactory daemonThreads(final String name) {
+        final AtomicInteger counter = new AtomicInteger();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, name + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+    
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
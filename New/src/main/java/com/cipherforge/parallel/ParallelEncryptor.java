@@ -0,0 +1,185 @@
+package com.cipherforge.parallel;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.core.CipherResult;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.core.KeyCache;
+import com.cipherforge.core.SubstitutionTable;
+import com.cipherforge.metrics.AlgorithmMetrics;
+import com.cipherforge.metrics.CipherMetrics;
+
+/**
+ * Encrypts large inputs on a ForkJoinPool. Because the key only advances on
+ * letters, each chunk's starting key offset is found from a prefix sum of the
+ * letter counts of the chunks before it, so the output is identical to the
+ * sequential cipher.
+ */
+public class ParallelEncryptor {
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    
+    public ParallelEncryptor() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+    
+    public ParallelEncryptor(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+    
+    public CipherResult encrypt(CipherAlgorithm cipher, String plaintext, String key) {
+        AlgorithmMetrics metrics = CipherMetrics.getDefault().forAlgorithm(cipher.getName());
+        long start = metrics.start();
+        CompiledKey compiled = KeyCache.getDefault().get(cipher, key);
+        if (compiled == null) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+            return new CipherResult("", cipher.getName(), key, false);
+        }
+        
+        char[] buffer = plaintext.toCharArray();
+        encrypt(buffer, 0, buffer.length, compiled, 0);
+        metrics.recordChars(buffer.length, start);
+        
+        return new CipherResult(new String(buffer), cipher.getName(), key, true);
+    }
+    
+    /**
+     * Streams input through the cipher, encrypting each buffer of
+     * chunkSize * parallelism chars across the pool. Returns the number of
+     * characters written, or -1 if the key is invalid.
+     */
+    public long encrypt(CipherAlgorithm cipher, Reader input, Writer output, String key) throws IOException {
+        CompiledKey compiled = KeyCache.getDefault().get(cipher, key);
+        if (compiled == null) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+            return -1;
+        }
+        
+        return encrypt(input, output, compiled);
+    }
+    
+    public long encrypt(Reader input, Writer output, CompiledKey key) throws IOException {
+        AlgorithmMetrics metrics = CipherMetrics.getDefault().forAlgorithm(key.getAlgorithm());
+        long start = metrics.startBulk();
+        char[] buffer = new char[chunkSize * Math.max(1, pool.getParallelism())];
+        long total = 0;
+        int keyIndex = 0;
+        int filled;
+        
+        try {
+            while ((filled = fill(input, buffer)) > 0) {
+                keyIndex = encrypt(buffer, 0, filled, key, keyIndex);
+                output.write(buffer, 0, filled);
+                total += filled;
+            }
+            
+            output.flush();
+        } catch (IOException e) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.reasonFor(e));
+            throw e;
+        }
+        
+        metrics.recordChars(total, start);
+        return total;
+    }
+    
+    /**
+     * Encrypts buffer[offset, offset + length) in place starting at keyIndex and
+     * returns the key index for the letter that follows the range.
+     */
+    public int encrypt(char[] buffer, int offset, int length, CompiledKey key, int keyIndex) {
+        if (length <= chunkSize) {
+            return key.apply(buffer, offset, length, keyIndex);
+        }
+        
+        SubstitutionTable table = key.getTable();
+        int chunkCount = (int) (((long) length + chunkSize - 1) / chunkSize);
+        int[] startKeys = new int[chunkCount];
+        int period = key.getPeriod();
+        
+        if (period > 1) {
+            int[] letterCounts = new int[chunkCount];
+            pool.invoke(new ChunkTask(buffer, offset, length, null, letterCounts, 0, chunkCount));
+            
+            int next = keyIndex;
+            for (int i = 0; i < chunkCount; i++) {
+                startKeys[i] = next;
+                next = (int) ((next + (long) letterCounts[i]) % period);
+            }
+            
+            pool.invoke(new ChunkTask(buffer, offset, length, table, startKeys, 0, chunkCount));
+            return next;
+        }
+        
+        pool.invoke(new ChunkTask(buffer, offset, length, table, startKeys, 0, chunkCount));
+        return 0;
+    }
+    
+    private static int fill(Reader input, char[] buffer) throws IOException {
+        int filled = 0;
+        int read;
+        
+        while (filled < buffer.length && (read = input.read(buffer, filled, buffer.length - filled)) != -1) {
+            filled += read;
+        }
+        
+        return filled;
+    }
+    
+    /**
+     * Processes chunks [from, to). With table == null it counts the letters of
+     * each chunk into values; otherwise values holds each chunk's starting key
+     * index and the chunk is encrypted in place.
+     */
+    private class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final char[] buffer;
+        private final int offset;
+        private final int length;
+        private final SubstitutionTable table;
+        private final int[] values;
+        private final int from;
+        private final int to;
+        
+        ChunkTask(char[] buffer, int offset, int length, SubstitutionTable table, int[] values, int from, int to) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+            this.table = table;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkTask(buffer, offset, length, table, values, from, mid),
+                          new ChunkTask(buffer, offset, length, table, values, mid, to));
+                return;
+            }
+            
+            int start = offset + from * chunkSize;
+            int size = Math.min(chunkSize, offset + length - start);
+            
+            if (table == null) {
+                values[from] = SubstitutionTable.countLetters(buffer, start, size);
+            } else {
+                table.apply(buffer, start, size, values[from]);
+            }
+        }
+    }
+}
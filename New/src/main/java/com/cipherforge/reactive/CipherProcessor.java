@@ -0,0 +1,419 @@
+package com.cipherforge.reactive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.cipherforge.core.ByteCipher;
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.core.KeyCache;
+import com.cipherforge.metrics.AlgorithmMetrics;
+import com.cipherforge.metrics.CipherMetrics;
+
+/**
+ * A Flow.Processor that encrypts a stream of text records without blocking
+ * any thread. At most bufferSize records are requested from upstream that
+ * have not yet been delivered downstream, so a slow subscriber holds back the
+ * publisher instead of filling memory. Records that arrive while a worker is
+ * busy are taken up to batchSize at a time, so small records share one task
+ * and one key application.
+ *
+ * ORDERED mode runs one worker at a time and treats the records as a single
+ * stream: the key position carries over from one record to the next, exactly
+ * as if the records were concatenated, and output order matches input order.
+ * UNORDERED mode treats each record as an independent message starting at
+ * the beginning of the key and runs up to parallelism workers at once;
+ * records are delivered as they finish.
+ *
+ * Supports a single subscriber; a second one is rejected with
+ * IllegalStateException.
+ */
+public class CipherProcessor implements Flow.Processor<String, String> {
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    public static final int DEFAULT_BUFFER_SIZE = 256;
+    
+    public enum Mode {
+        ORDERED,
+        UNORDERED
+    }
+    
+    private final CompiledKey key;
+    private final Mode mode;
+    private final Executor executor;
+    private final int maxWorkers;
+    private final int batchSize;
+    private final int bufferSize;
+    private final AlgorithmMetrics metrics;
+    
+    private final Queue<String> inputs = new ConcurrentLinkedQueue<String>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Queue<String> outputs = new ConcurrentLinkedQueue<String>();
+    private final AtomicInteger workers = new AtomicInteger();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicReference<Flow.Subscriber<? super String>> downstream =
+            new AtomicReference<Flow.Subscriber<? super String>>();
+    private final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+    private volatile Flow.Subscription upstream;
+    private volatile boolean upstreamDone;
+    private volatile boolean cancelled;
+    
+    // Owned by the single ORDERED worker; handed between workers through the
+    // workers counter.
+    private int keyIndex;
+    
+    // Owned by whichever thread is inside drain().
+    private long inFlight;
+    private boolean terminated;
+    
+    /**
+     * Encrypts (or decrypts) with cipher on the common ForkJoinPool using the
+     * default batch and buffer sizes. Throws IllegalArgumentException if the
+     * key is invalid or cipher works on bytes.
+     */
+    public CipherProcessor(CipherAlgorithm cipher, String key, boolean decrypt, Mode mode) {
+        this(compile(cipher, key, decrypt), mode, ForkJoinPool.commonPool(),
+                Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE, DEFAULT_BUFFER_SIZE);
+    }
+    
+    /**
+     * parallelism is the most workers UNORDERED mode runs at once; ORDERED
+     * mode always runs one.
+     */
+    public CipherProcessor(CompiledKey key, Mode mode, Executor executor, int parallelism, int batchSize,
+            int bufferSize) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.key = Objects.requireNonNull(key, "key");
+        this.mode = Objects.requireNonNull(mode, "mode");
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.maxWorkers = mode == Mode.ORDERED ? 1 : parallelism;
+        this.batchSize = batchSize;
+        this.bufferSize = bufferSize;
+        this.metrics = CipherMetrics.getDefault().forAlgorithm(key.getAlgorithm());
+    }
+    
+    private static CompiledKey compile(CipherAlgorithm cipher, String key, boolean decrypt) {
+        if (cipher instanceof ByteCipher) {
+            throw new IllegalArgumentException(cipher.getName() + " works on bytes, not text records.");
+        }
+        CompiledKey compiled = KeyCache.getDefault().get(cipher, key);
+        if (compiled == null) {
+            CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+            throw new IllegalArgumentException("Invalid key for " + cipher.getName() + ".");
+        }
+        return decrypt ? compiled.inverse() : compiled;
+    }
+    
+    public Mode getMode() {
+        return mode;
+    }
+    
+    @Override
+    public void subscribe(Flow.Subscriber<? super String> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        if (!downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+                
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("CipherProcessor supports a single subscriber."));
+            return;
+        }
+        
+        subscriber.onSubscribe(new Downstream());
+        drain();
+    }
+    
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription, "subscription");
+        if (upstream != null || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        drain();
+    }
+    
+    @Override
+    public void onNext(String item) {
+        Objects.requireNonNull(item, "item");
+        if (cancelled) {
+            return;
+        }
+        pending.incrementAndGet();
+        inputs.offer(item);
+        schedule();
+    }
+    
+    @Override
+    public void onError(Throwable throwable) {
+        Objects.requireNonNull(throwable, "throwable");
+        error.compareAndSet(null, throwable);
+        upstreamDone = true;
+        drain();
+    }
+    
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+    
+    /**
+     * Starts another worker if there is more queued input than the running
+     * workers will pick up in their next batch.
+     */
+    private void schedule() {
+        while (true) {
+            int active = workers.get();
+            if (active >= maxWorkers || pending.get() <= (long) active * batchSize) {
+                return;
+            }
+            if (workers.compareAndSet(active, active + 1)) {
+                try {
+                    executor.execute(new Worker());
+                } catch (RejectedExecutionException e) {
+                    workers.decrementAndGet();
+                    fail(e);
+                    return;
+                }
+            }
+        }
+    }
+    
+    private void fail(Throwable throwable) {
+        error.compareAndSet(null, throwable);
+        Flow.Subscription subscription = upstream;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        drain();
+    }
+    
+    /**
+     * Delivers finished records within the subscriber's demand, signals the
+     * terminal event once everything is delivered and tops up the upstream
+     * request. Calls from several threads are serialized: whichever thread
+     * gets in first loops until no further call arrived meanwhile.
+     */
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        
+        int missed = 1;
+        do {
+            Flow.Subscriber<? super String> subscriber = downstream.get();
+            if (subscriber != null && !terminated) {
+                if (cancelled) {
+                    terminated = true;
+                    inputs.clear();
+                    outputs.clear();
+                } else if (error.get() != null) {
+                    terminated = true;
+                    inputs.clear();
+                    outputs.clear();
+                    subscriber.onError(error.get());
+                } else {
+                    emit(subscriber);
+                }
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+    
+    private void emit(Flow.Subscriber<? super String> subscriber) {
+        long demand = requested.get();
+        long emitted = 0;
+        
+        while (emitted < demand && !cancelled) {
+            String next = outputs.poll();
+            if (next == null) {
+                break;
+            }
+            subscriber.onNext(next);
+            emitted++;
+        }
+        
+        if (emitted > 0) {
+            inFlight -= emitted;
+            if (demand != Long.MAX_VALUE) {
+                requested.addAndGet(-emitted);
+            }
+        }
+        
+        if (upstreamDone && pending.get() == 0 && workers.get() == 0 && outputs.isEmpty()) {
+            terminated = true;
+            subscriber.onComplete();
+            return;
+        }
+        
+        Flow.Subscription subscription = upstream;
+        long free = bufferSize - inFlight;
+        if (subscription != null && !upstreamDone && free > 0 && (inFlight == 0 || free >= bufferSize / 2)) {
+            inFlight += free;
+            subscription.request(free);
+        }
+    }
+    
+    private final class Worker implements Runnable {
+        private final List<String> batch = new ArrayList<String>();
+        private char[] scratch = new char[CipherAlgorithm.DEFAULT_BUFFER_SIZE];
+        
+        @Override
+        public void run() {
+            while (true) {
+                String next;
+                while (batch.size() < batchSize && (next = inputs.poll()) != null) {
+                    pending.decrementAndGet();
+                    batch.add(next);
+                }
+                
+                if (batch.isEmpty()) {
+                    workers.decrementAndGet();
+                    if (!reacquire()) {
+                        break;
+                    }
+                    continue;
+                }
+                
+                try {
+                    if (mode == Mode.ORDERED) {
+                        encryptContinuous();
+                    } else {
+                        encryptEach();
+                    }
+                } catch (RuntimeException e) {
+                    workers.decrementAndGet();
+                    fail(e);
+                    return;
+                }
+                batch.clear();
+                drain();
+            }
+            drain();
+        }
+        
+        /**
+         * Takes the worker slot back if input arrived after this worker found
+         * the queue empty but before it gave the slot up.
+         */
+        private boolean reacquire() {
+            while (pending.get() > 0 && !cancelled) {
+                int active = workers.get();
+                if (active >= maxWorkers) {
+                    return false;
+                }
+                if (workers.compareAndSet(active, active + 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        /**
+         * Encrypts the batch as one run of text, continuing from the key
+         * position the previous batch ended at.
+         */
+        private void encryptContinuous() {
+            long start = metrics.start();
+            int total = 0;
+            for (String record : batch) {
+                total += record.length();
+            }
+            ensureCapacity(total);
+            
+            int offset = 0;
+            for (String record : batch) {
+                record.getChars(0, record.length(), scratch, offset);
+                offset += record.length();
+            }
+            keyIndex = key.apply(scratch, 0, total, keyIndex);
+            
+            offset = 0;
+            for (String record : batch) {
+                outputs.offer(new String(scratch, offset, record.length()));
+                offset += record.length();
+            }
+            metrics.recordChars(total, start);
+        }
+        
+        private void encryptEach() {
+            long start = metrics.start();
+            long total = 0;
+            for (String record : batch) {
+                int length = record.length();
+                ensureCapacity(length);
+                record.getChars(0, length, scratch, 0);
+                key.apply(scratch, 0, length, 0);
+                outputs.offer(new String(scratch, 0, length));
+                total += length;
+            }
+            metrics.recordChars(total, start);
+        }
+        
+        private void ensureCapacity(int length) {
+            if (scratch.length < length) {
+                scratch = new char[Math.max(length, scratch.length * 2)];
+            }
+        }
+    }
+    
+    private final class Downstream implements Flow.Subscription {
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Requested a non-positive number of records: " + n));
+                return;
+            }
+            
+            long current;
+            long next;
+            do {
+                current = requested.get();
+                if (current == Long.MAX_VALUE) {
+                    break;
+                }
+                next = current + n;
+                if (next < 0) {
+                    next = Long.MAX_VALUE;
+                }
+            } while (!requested.compareAndSet(current, next));
+            drain();
+        }
+        
+        @Override
+        public void cancel() {
+            cancelled = true;
+            Flow.Subscription subscription = upstream;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            drain();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.cipherforge.registry;
+
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.validation.KeySchema;
+
+/**
+ * Service provider interface for ciphers. Implementations are discovered with
+ * ServiceLoader from META-INF/services/com.cipherforge.registry.CipherProvider
+ * and must be cheap to construct: the cipher itself is only created by
+ * createCipher the first time it is looked up.
+ */
+public interface CipherProvider {
+    /**
+     * The registry id used for menu selection and --algorithm, e.g. "1".
+     */
+    String getId();
+    
+    String getName();
+    
+    /**
+     * "Label: text" lines for the algorithm info screen, e.g. the cipher's
+     * type, method and security. The key line comes from getKeySchema.
+     */
+    String getDescription();
+    
+    KeySchema getKeySchema();
+    
+    CipherAlgorithm createCipher();
+}
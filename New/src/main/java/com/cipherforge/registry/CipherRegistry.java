@@ -1,36 +1,119 @@
 package com.cipherforge.registry;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.cipherforge.core.CipherAlgorithm;
-import com.cipherforge.algorithms.CaesarCipher;
-import com.cipherforge.algorithms.VigenereCipher;
 
+/**
+ * Ciphers discovered through the CipherProvider SPI. The id-to-provider map is
+ * built once and never modified, so concurrent lookups need no locking; each
+ * cipher is created the first time it is looked up.
+ */
 public class CipherRegistry {
-    private HashMap<String, CipherAlgorithm> ciphers;
+    private final Map<String, Registration> ciphers;
+    private final List<String> ids;
     
     public CipherRegistry() {
-        ciphers = new HashMap<String, CipherAlgorithm>();
-        initializeCiphers();
+        this(ServiceLoader.load(CipherProvider.class));
     }
     
-    private void initializeCiphers() {
-        CipherAlgorithm caesar = new CaesarCipher();
-        CipherAlgorithm vigenere = new VigenereCipher();
+    public CipherRegistry(ClassLoader loader) {
+        this(ServiceLoader.load(CipherProvider.class, loader));
+    }
+    
+    public CipherRegistry(Iterable<CipherProvider> providers) {
+        HashMap<String, Registration> loaded = new HashMap<String, Registration>();
+        
+        for (CipherProvider provider : providers) {
+            if (loaded.put(provider.getId(), new Registration(provider)) != null) {
+                throw new IllegalStateException("Duplicate cipher id: " + provider.getId());
+            }
+        }
         
-        ciphers.put("1", caesar);
-        ciphers.put("2", vigenere);
+        List<String> sortedIds = new ArrayList<String>(loaded.keySet());
+        Collections.sort(sortedIds);
+        
+        ciphers = Collections.unmodifiableMap(loaded);
+        ids = Collections.unmodifiableList(sortedIds);
     }
     
     public CipherAlgorithm getCipher(String key) {
-        return ciphers.get(key);
+        Registration registration = ciphers.get(key);
+        return registration != null ? registration.getCipher() : null;
+    }
+    
+    public CipherProvider getProvider(String key) {
+        Registration registration = ciphers.get(key);
+        return registration != null ? registration.provider : null;
+    }
+    
+    /**
+     * Looks a cipher up by registry id or by name, ignoring case; a name may be
+     * given without its " Cipher" suffix and with hyphens for spaces, e.g.
+     * "vigenere" or "byte-caesar".
+     */
+    public CipherAlgorithm findCipher(String idOrName) {
+        Registration registration = find(idOrName);
+        return registration != null ? registration.getCipher() : null;
+    }
+    
+    /**
+     * Looks a provider up by registry id or name, as findCipher does.
+     */
+    public CipherProvider findProvider(String idOrName) {
+        Registration registration = find(idOrName);
+        return registration != null ? registration.provider : null;
+    }
+    
+    /**
+     * Returns the registry id of the cipher called name (as returned by
+     * CipherAlgorithm.getName), or null if none is registered.
+     */
+    public String getId(String name) {
+        for (String id : ids) {
+            if (ciphers.get(id).provider.getName().equals(name)) {
+                return id;
+            }
+        }
+        return null;
+    }
+    
+    private Registration find(String idOrName) {
+        if (idOrName == null) {
+            return null;
+        }
+        
+        Registration registration = ciphers.get(idOrName);
+        if (registration != null) {
+            return registration;
+        }
+        
+        String spaced = idOrName.replace('-', ' ');
+        for (Registration candidate : ciphers.values()) {
+            String name = candidate.provider.getName();
+            if (name.equalsIgnoreCase(spaced) || name.equalsIgnoreCase(spaced + " Cipher")) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+    
+    public List<String> getCipherIds() {
+        return ids;
     }
     
     public void listAvailableCiphers() {
         System.out.println("Available Cipher Algorithms:");
-        System.out.println("1. Caesar Cipher");
-        System.out.println("2. Vigenere Cipher");
+        for (String id : ids) {
+            System.out.println(id + ". " + ciphers.get(id).provider.getName());
+        }
     }
     
     public boolean isValidChoice(String choice) {
@@ -38,11 +121,29 @@ public class CipherRegistry {
     }
     
     public void displayCipherNames() {
-        Iterator<String> keyIterator = ciphers.keySet().iterator();
+        Iterator<String> keyIterator = ids.iterator();
         while (keyIterator.hasNext()) {
             String key = keyIterator.next();
-            CipherAlgorithm cipher = ciphers.get(key);
-            System.out.println(key + ": " + cipher.getName());
+            CipherProvider provider = ciphers.get(key).provider;
+            System.out.println(key + ": " + provider.getName());
+        }
+    }
+    
+    private static final class Registration {
+        final CipherProvider provider;
+        final AtomicReference<CipherAlgorithm> cipher = new AtomicReference<CipherAlgorithm>();
+        
+        Registration(CipherProvider provider) {
+            this.provider = provider;
+        }
+        
+        CipherAlgorithm getCipher() {
+            CipherAlgorithm current = cipher.get();
+            if (current == null) {
+                CipherAlgorithm created = provider.createCipher();
+                current = cipher.compareAndSet(null, created) ? created : cipher.get();
+            }
+            return current;
         }
     }
 }
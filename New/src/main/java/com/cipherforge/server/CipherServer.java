@@ -0,0 +1,288 @@
+package com.cipherforge.server;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+import com.cipherforge.core.ByteCipher;
+import com.cipherforge.core.ByteKey;
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.core.KeyCache;
+import com.cipherforge.metrics.CipherMetrics;
+import com.cipherforge.parallel.IoExecutors;
+import com.cipherforge.registry.CipherProvider;
+import com.cipherforge.registry.CipherRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the registered ciphers over HTTP using the JDK's built-in server.
+ *
+ * POST /encrypt?algorithm=vigenere and POST /decrypt?algorithm=vigenere take
+ * the key in the X-Cipher-Key header (so it stays out of access logs) and
+ * stream the UTF-8 request body through the cipher into a chunked response,
+ * one buffer at a time. Byte ciphers stream raw application/octet-stream
+ * bodies instead. GET /algorithms lists the ciphers, GET /metrics
+ * returns CipherMetrics as JSON (or text with ?format=text) and GET /health
+ * reports liveness.
+ *
+ * Each exchange runs on its own I/O thread (virtual where available). At most
+ * maxConcurrency exchanges are in flight: beyond that the dispatcher blocks
+ * before handing off the next one, so new connections wait in the TCP backlog
+ * instead of piling up in memory.
+ */
+public class CipherServer {
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_MAX_CONCURRENCY = 64;
+    public static final String KEY_HEADER = "X-Cipher-Key";
+    
+    private static final int BUFFER_SIZE = CipherAlgorithm.DEFAULT_BUFFER_SIZE;
+    private static final String TEXT_PLAIN = "text/plain; charset=utf-8";
+    private static final String OCTET_STREAM = "application/octet-stream";
+    
+    private final CipherRegistry registry;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    
+    public CipherServer(CipherRegistry registry, InetSocketAddress address, int maxConcurrency) throws IOException {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Max concurrency must be positive: " + maxConcurrency);
+        }
+        
+        this.registry = registry;
+        this.workers = IoExecutors.newIoExecutor("cipherforge-http", maxConcurrency);
+        this.server = HttpServer.create(address, 0);
+        
+        server.setExecutor(new BoundedExecutor(workers, maxConcurrency));
+        server.createContext("/encrypt", new CipherHandler(false));
+        server.createContext("/decrypt", new CipherHandler(true));
+        server.createContext("/algorithms", new AlgorithmsHandler());
+        server.createContext("/metrics", new MetricsHandler());
+        server.createContext("/health", new HealthHandler());
+    }
+    
+    /**
+     * Starts serving and publishes CipherMetrics over JMX.
+     */
+    public void start() {
+        CipherMetrics.getDefault().registerMBeans();
+        server.start();
+    }
+    
+    /**
+     * Stops accepting requests, waits up to delaySeconds for in-flight
+     * exchanges to finish, then releases the worker threads.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        workers.shutdown();
+    }
+    
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+    
+    private class CipherHandler implements HttpHandler {
+        private final boolean decrypt;
+        
+        CipherHandler(boolean decrypt) {
+            this.decrypt = decrypt;
+        }
+        
+        /**
+         * The 200 status is committed before the body is read, so a failure
+         * while streaming (malformed UTF-8, a dropped client) cannot become an
+         * error status. The exchange is then left unclosed and the exception
+         * rethrown: the server drops the connection without the terminating
+         * chunk and the client sees a broken transfer, not a short success.
+         * The cipher has already recorded the failure in CipherMetrics.
+         */
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            boolean aborted = false;
+            try {
+                if (!"POST".equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().set("Allow", "POST");
+                    sendText(exchange, 405, "Use POST.");
+                    return;
+                }
+                
+                String algorithm = queryParameters(exchange).get("algorithm");
+                if (algorithm == null) {
+                    sendText(exchange, 400, "Missing algorithm parameter.");
+                    return;
+                }
+                
+                CipherAlgorithm cipher = registry.findCipher(algorithm);
+                if (cipher == null) {
+                    CipherMetrics.getDefault().recordFailure(CipherMetrics.UNKNOWN_ALGORITHM);
+                    sendText(exchange, 404, "Unknown algorithm '" + algorithm + "'.");
+                    return;
+                }
+                
+                String key = exchange.getRequestHeaders().getFirst(KEY_HEADER);
+                if (cipher instanceof ByteCipher) {
+                    transformBytes(exchange, cipher, (ByteCipher) cipher, key);
+                    return;
+                }
+                
+                CompiledKey compiled = key != null ? KeyCache.getDefault().get(cipher, key) : null;
+                if (compiled == null) {
+                    CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+                    sendText(exchange, 400, "Missing or invalid " + KEY_HEADER + " header for " + cipher.getName() + ".");
+                    return;
+                }
+                
+                exchange.getResponseHeaders().set("Content-Type", TEXT_PLAIN);
+                exchange.sendResponseHeaders(200, 0);
+                
+                Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8.newDecoder());
+                Writer writer = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8);
+                cipher.encrypt(reader, writer, decrypt ? compiled.inverse() : compiled, BUFFER_SIZE);
+                writer.close();
+            } catch (IOException | RuntimeException e) {
+                aborted = true;
+                throw e;
+            } finally {
+                if (!aborted) {
+                    exchange.close();
+                }
+            }
+        }
+        
+        /**
+         * Byte ciphers take and return application/octet-stream bodies, shifted
+         * without any charset decoding.
+         */
+        private void transformBytes(HttpExchange exchange, CipherAlgorithm cipher, ByteCipher byteCipher, String key)
+                throws IOException {
+            ByteKey compiled = key != null ? byteCipher.compileByteKey(key) : null;
+            if (compiled == null) {
+                CipherMetrics.getDefault().recordFailure(CipherMetrics.INVALID_KEY);
+                sendText(exchange, 400, "Missing or invalid " + KEY_HEADER + " header for " + cipher.getName() + ".");
+                return;
+            }
+            
+            exchange.getResponseHeaders().set("Content-Type", OCTET_STREAM);
+            exchange.sendResponseHeaders(200, 0);
+            
+            WritableByteChannel output = Channels.newChannel(exchange.getResponseBody());
+            byteCipher.encrypt(Channels.newChannel(exchange.getRequestBody()), output,
+                    decrypt ? compiled.inverse() : compiled, BUFFER_SIZE);
+            output.close();
+        }
+    }
+    
+    private class AlgorithmsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            StringBuilder body = new StringBuilder();
+            for (String id : registry.getCipherIds()) {
+                CipherProvider provider = registry.getProvider(id);
+                body.append(id).append('\t').append(provider.getName())
+                        .append('\t').append(provider.getKeySchema().getDescription()).append('\n');
+            }
+            sendText(exchange, 200, body.toString());
+        }
+    }
+    
+    private static class MetricsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            CipherMetrics metrics = CipherMetrics.getDefault();
+            if ("text".equals(queryParameters(exchange).get("format"))) {
+                sendText(exchange, 200, metrics.toText());
+                return;
+            }
+            
+            byte[] body = (metrics.toJson() + "\n").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+    
+    private static class HealthHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            sendText(exchange, 200, "ok\n");
+        }
+    }
+    
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", TEXT_PLAIN);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+    
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<String, String>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        
+        for (String pair : query.split("&")) {
+            int split = pair.indexOf('=');
+            if (split > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, split), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(split + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+    
+    /**
+     * Limits how many exchanges run at once by blocking the caller (the
+     * server's dispatcher thread) until a permit is free.
+     */
+    private static final class BoundedExecutor implements Executor {
+        private final Executor delegate;
+        private final Semaphore permits;
+        
+        BoundedExecutor(Executor delegate, int maxConcurrency) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(maxConcurrency);
+        }
+        
+        @Override
+        public void execute(final Runnable task) {
+            permits.acquireUninterruptibly();
+            try {
+                delegate.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            task.run();
+                        } finally {
+                            permits.release();
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+    }
+}
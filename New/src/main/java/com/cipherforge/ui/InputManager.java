@@ -3,7 +3,7 @@ package com.cipherforge.ui;
 import java.util.Scanner;
 import java.util.InputMismatchException;
 import com.cipherforge.registry.CipherRegistry;
-import com.cipherforge.validation.KeyValidator;
+import com.cipherforge.validation.KeySchema;
 
 public class InputManager {
     private final Scanner scanner;
@@ -72,37 +72,21 @@ public class InputManager {
                 System.out.println("CIPHER SELECTION");
                 System.out.println(SEPARATOR);
                 registry.listAvailableCiphers();
-                System.out.print("\nSelect cipher (1-2): ");
+                String choices = String.join(", ", registry.getCipherIds());
+                System.out.print("\nSelect cipher (" + choices + "): ");
                 
-                if (!scanner.hasNextInt()) {
-                    scanner.nextLine();
-                    throw new InvalidInputException("Please enter a valid number (1 or 2).");
-                }
+                String choice = scanner.nextLine().trim();
                 
-                int choice = scanner.nextInt();
-                scanner.nextLine();
-                String choiceStr = String.valueOf(choice);
-                
-                if (!registry.isValidChoice(choiceStr)) {
-                    throw new InvalidInputException("Invalid cipher selection. Please choose 1 or 2.");
+                if (!registry.isValidChoice(choice)) {
+                    throw new InvalidInputException("Invalid cipher selection. Please choose one of: " + choices + ".");
                 }
                 
-                return choiceStr;
+                return choice;
                 
             } catch (InvalidInputException e) {
                 attempts++;
                 System.err.println("Error: " + e.getMessage());
                 
-                if (attempts < MAX_RETRY_ATTEMPTS) {
-                    System.out.println("Attempts remaining: " + (MAX_RETRY_ATTEMPTS - attempts));
-                } else {
-                    throw new InvalidInputException("Maximum retry attempts exceeded for cipher selection.");
-                }
-            } catch (InputMismatchException e) {
-                attempts++;
-                scanner.nextLine();
-                System.err.println("Error: Please enter a valid number (1 or 2).");
-                
                 if (attempts < MAX_RETRY_ATTEMPTS) {
                     System.out.println("Attempts remaining: " + (MAX_RETRY_ATTEMPTS - attempts));
                 } else {
@@ -133,7 +117,7 @@ public class InputManager {
         return input;
     }
     
-    public String getKey(String cipherName) throws InvalidInputException {
+    public String getKey(KeySchema schema) throws InvalidInputException {
         int attempts = 0;
         
         while (attempts < MAX_RETRY_ATTEMPTS) {
@@ -142,40 +126,16 @@ public class InputManager {
                 System.out.println("KEY INPUT");
                 System.out.println(SEPARATOR);
                 
-                String prompt;
-                if (cipherName.contains("Caesar")) {
-                    prompt = "Enter shift value (integer between -25 and 25): ";
-                } else if (cipherName.contains("Vigenere")) {
-                    prompt = "Enter keyword (letters only, 1-20 characters): ";
-                } else {
-                    prompt = "Enter key: ";
-                }
-                
-                System.out.print(prompt);
+                System.out.print(schema.getPrompt());
                 String key = scanner.nextLine().trim();
                 
                 if (key.isEmpty()) {
                     throw new InvalidInputException("Key cannot be empty.");
                 }
                 
-                if (cipherName.contains("Caesar")) {
-                    if (!KeyValidator.isValidCaesarKey(key)) {
-                        throw new InvalidInputException("Invalid Caesar key. Please enter an integer between -25 and 25.");
-                    }
-                    
-                    int shiftValue = Integer.parseInt(key);
-                    if (shiftValue < -25 || shiftValue > 25) {
-                        throw new InvalidInputException("Shift value must be between -25 and 25.");
-                    }
-                    
-                } else if (cipherName.contains("Vigenere")) {
-                    if (!KeyValidator.isValidVigenereKey(key)) {
-                        throw new InvalidInputException("Invalid Vigenere key. Please use only letters (a-z, A-Z).");
-                    }
-                    
-                    if (key.length() > 20) {
-                        throw new InvalidInputException("Vigenere key is too long. Maximum length is 20 characters.");
-                    }
+                String error = schema.validate(key);
+                if (error != null) {
+                    throw new InvalidInputException(error);
                 }
                 
                 return key;
@@ -184,15 +144,6 @@ public class InputManager {
                 attempts++;
                 System.err.println("Error: " + e.getMessage());
                 
-                if (attempts < MAX_RETRY_ATTEMPTS) {
-                    System.out.println("Attempts remaining: " + (MAX_RETRY_ATTEMPTS - attempts));
-                } else {
-                    throw new InvalidInputException("Maximum retry attempts exceeded for key input.");
-                }
-            } catch (NumberFormatException e) {
-                attempts++;
-                System.err.println("Error: Please enter a valid integer for Caesar cipher.");
-                
                 if (attempts < MAX_RETRY_ATTEMPTS) {
                     System.out.println("Attempts remaining: " + (MAX_RETRY_ATTEMPTS - attempts));
                 } else {
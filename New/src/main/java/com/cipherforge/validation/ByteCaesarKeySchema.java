@@ -0,0 +1,28 @@
+package com.cipherforge.validation;
+
+public class ByteCaesarKeySchema implements KeySchema {
+    public static final int MAX_SHIFT = 255;
+    
+    @Override
+    public String getPrompt() {
+        return "Enter byte shift value (integer between -" + MAX_SHIFT + " and " + MAX_SHIFT + "): ";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Integer (-" + MAX_SHIFT + " to " + MAX_SHIFT + "), shifts every byte mod 256";
+    }
+    
+    @Override
+    public String validate(String key) {
+        if (!KeyValidator.isValidCaesarKey(key)) {
+            return "Invalid byte Caesar key. Please enter an integer between -" + MAX_SHIFT + " and " + MAX_SHIFT + ".";
+        }
+        
+        int shiftValue = Integer.parseInt(key);
+        if (shiftValue < -MAX_SHIFT || shiftValue > MAX_SHIFT) {
+            return "Shift value must be between -" + MAX_SHIFT + " and " + MAX_SHIFT + ".";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.cipherforge.validation;
+
+public class ByteVigenereKeySchema implements KeySchema {
+    public static final int MAX_LENGTH = 64;
+    
+    @Override
+    public String getPrompt() {
+        return "Enter key (any characters, 1-" + MAX_LENGTH + " characters): ";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Any characters (1-" + MAX_LENGTH + "), used as UTF-8 bytes";
+    }
+    
+    @Override
+    public String validate(String key) {
+        if (key == null || key.trim().isEmpty()) {
+            return "Invalid byte Vigenere key. The key must not be blank.";
+        }
+        
+        if (key.length() > MAX_LENGTH) {
+            return "Byte Vigenere key is too long. Maximum length is " + MAX_LENGTH + " characters.";
+        }
+        return null;
+    }
+}
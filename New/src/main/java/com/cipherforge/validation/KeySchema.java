@@ -0,0 +1,17 @@
+package com.cipherforge.validation;
+
+/**
+ * Describes the keys a cipher accepts for interactive use: how to prompt for
+ * one and how to validate it.
+ */
+public interface KeySchema {
+    String getPrompt();
+    
+    String getDescription();
+    
+    /**
+     * Returns null if key is acceptable, otherwise a message explaining why
+     * it is not.
+     */
+    String validate(String key);
+}
@@ -17,6 +17,27 @@ public class KeyValidator {
         return true;
     }
     
+    /**
+     * True if key is the 26 ASCII letters A-Z, in any order and case, each
+     * exactly once.
+     */
+    public static boolean isValidSubstitutionKey(String key) {
+        if (key == null || key.length() != 26) {
+            return false;
+        }
+        
+        boolean[] seen = new boolean[26];
+        for (int i = 0; i < key.length(); i++) {
+            int letter = (key.charAt(i) | 0x20) - 'a';
+            if (letter < 0 || letter >= 26 || seen[letter]) {
+                return false;
+            }
+            seen[letter] = true;
+        }
+        
+        return true;
+    }
+    
     public static boolean isValidCaesarKey(String key) {
         if (key == null || key.trim().isEmpty()) {
             return false;
@@ -0,0 +1,26 @@
+package com.cipherforge.validation;
+
+public class SubstitutionKeySchema implements KeySchema {
+    
+    @Override
+    public String getPrompt() {
+        return "Enter cipher alphabet (each letter A-Z once, e.g. QWERTYUIOPASDFGHJKLZXCVBNM): ";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "26 letters, each of A-Z once";
+    }
+    
+    @Override
+    public String validate(String key) {
+        if (key == null || key.length() != 26) {
+            return "Substitution key must be exactly 26 letters.";
+        }
+        
+        if (!KeyValidator.isValidSubstitutionKey(key)) {
+            return "Invalid Substitution key. Use each letter A-Z exactly once.";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.cipherforge.validation;
+
+public class VigenereKeySchema implements KeySchema {
+    public static final int MAX_LENGTH = 20;
+    
+    @Override
+    public String getPrompt() {
+        return "Enter keyword (letters only, 1-" + MAX_LENGTH + " characters): ";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Letters only (1-" + MAX_LENGTH + " characters)";
+    }
+    
+    @Override
+    public String validate(String key) {
+        if (!KeyValidator.isValidVigenereKey(key)) {
+            return "Invalid Vigenere key. Please use only letters (a-z, A-Z).";
+        }
+        
+        if (key.length() > MAX_LENGTH) {
+            return "Vigenere key is too long. Maximum length is " + MAX_LENGTH + " characters.";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,86 @@
+package com.cipherforge.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.CharBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cipherforge.algorithms.CaesarCipher;
+import com.cipherforge.algorithms.SubstitutionCipher;
+import com.cipherforge.algorithms.VigenereCipher;
+
+/**
+ * Guards the zero-allocation promise of encryptInto(..., String key): once the
+ * key is cached and the code is compiled, a call must not allocate at all. The
+ * builds run tests with escape analysis off, so an allocation that C2 happens
+ * to scalar-replace still fails here.
+ */
+public class EncryptIntoAllocationTest {
+    private static final int WARMUP_CALLS = 50_000;
+    private static final int MEASURED_CALLS = 10_000;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final String PLAINTEXT = "The quick brown fox jumps over the lazy dog, 1234567890. ".repeat(4);
+    
+    private com.sun.management.ThreadMXBean threads;
+    private final char[] output = new char[PLAINTEXT.length()];
+    private final CharBuffer outputBuffer = CharBuffer.allocate(PLAINTEXT.length());
+    
+    @Before
+    public void setUp() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+    
+    @Test
+    public void caesarDoesNotAllocate() {
+        assertNoAllocation(new CaesarCipher(), "3");
+    }
+    
+    @Test
+    public void vigenereDoesNotAllocate() {
+        assertNoAllocation(new VigenereCipher(), "LEMON");
+    }
+    
+    @Test
+    public void substitutionDoesNotAllocate() {
+        assertNoAllocation(new SubstitutionCipher(), "QWERTYUIOPASDFGHJKLZXCVBNM");
+    }
+    
+    /**
+     * Warms up, then measures a few rounds of calls. Compilation can still
+     * allocate during the first rounds, so one clean round is enough, but a
+     * per-call allocation shows up in every round.
+     */
+    private void assertNoAllocation(CipherAlgorithm cipher, String key) {
+        run(cipher, key, WARMUP_CALLS);
+        
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS && allocated != 0; round++) {
+            long before = allocatedBytes();
+            run(cipher, key, MEASURED_CALLS);
+            allocated = Math.min(allocated, allocatedBytes() - before);
+        }
+        
+        assertEquals(cipher.getName() + " allocated " + allocated + " bytes over " + MEASURED_CALLS + " calls",
+                0, allocated);
+    }
+    
+    private void run(CipherAlgorithm cipher, String key, int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertEquals(PLAINTEXT.length(), cipher.encryptInto(PLAINTEXT, output, 0, key));
+            outputBuffer.clear();
+            assertEquals(PLAINTEXT.length(), cipher.encryptInto(PLAINTEXT, outputBuffer, key));
+        }
+    }
+    
+    private long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
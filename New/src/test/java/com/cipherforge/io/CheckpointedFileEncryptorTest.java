@@ -0,0 +1,173 @@
+package com.cipherforge.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.cipherforge.algorithms.ByteVigenereCipher;
+import com.cipherforge.algorithms.VigenereCipher;
+import com.cipherforge.core.ByteKey;
+import com.cipherforge.core.CompiledKey;
+
+/**
+ * An interrupted run is produced by a malformed UTF-8 byte near the end of the
+ * input: decoding fails after several checkpoints, leaving a real sidecar and
+ * unfinished output behind. Repairing that byte in place (same size, same
+ * modification time) then lets the next run resume.
+ */
+public class CheckpointedFileEncryptorTest {
+    private static final long INTERVAL = 16 * 1024;
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private final CheckpointedFileEncryptor encryptor = new CheckpointedFileEncryptor(INTERVAL);
+    private final CompiledKey key = new VigenereCipher().compileKey("LEMON");
+    
+    private Path input;
+    private Path output;
+    private byte[] plaintext;
+    private int damageAt;
+    
+    @Before
+    public void setUp() {
+        input = folder.getRoot().toPath().resolve("plain.txt");
+        output = folder.getRoot().toPath().resolve("cipher.txt");
+        plaintext = text();
+        damageAt = plaintext.length - 1000;
+    }
+    
+    @Test
+    public void uninterruptedRunMatchesStreamingEncryption() throws IOException {
+        Files.write(input, plaintext);
+        
+        assertEquals(plaintext.length, encryptor.encrypt(input, output, key));
+        
+        assertArrayEquals(expectedCiphertext(), Files.readAllBytes(output));
+        assertFalse(Files.exists(CheckpointedFileEncryptor.sidecarFor(output)));
+    }
+    
+    @Test
+    public void resumedRunMatchesUninterruptedRun() throws IOException {
+        interruptedRun();
+        // Output written after the last checkpoint, as a crash would leave it.
+        Files.write(output, "not yet checkpointed".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        
+        repairInput();
+        long processed = encryptor.encrypt(input, output, key);
+        
+        assertTrue("resumed run reprocessed the whole input", processed < plaintext.length - 4 * INTERVAL);
+        assertArrayEquals(expectedCiphertext(), Files.readAllBytes(output));
+        assertFalse(Files.exists(CheckpointedFileEncryptor.sidecarFor(output)));
+    }
+    
+    @Test
+    public void resumeWithDifferentKeyIsRejected() throws IOException {
+        interruptedRun();
+        repairInput();
+        
+        assertMismatch(new VigenereCipher().compileKey("LIME"), "different key");
+    }
+    
+    @Test
+    public void resumeAfterInputChangedIsRejected() throws IOException {
+        interruptedRun();
+        repairInput();
+        Files.setLastModifiedTime(input, FileTime.fromMillis(Files.getLastModifiedTime(input).toMillis() + 5000));
+        
+        assertMismatch(key, "Input file has changed");
+    }
+    
+    @Test
+    public void resumeOverDamagedOutputIsRejected() throws IOException {
+        interruptedRun();
+        repairInput();
+        byte[] partial = Files.readAllBytes(output);
+        partial[10] ^= 0x01;
+        Files.write(output, partial);
+        
+        assertMismatch(key, "Output does not match");
+    }
+    
+    @Test
+    public void byteKeyRunMatchesStreamingEncryption() throws IOException {
+        ByteKey byteKey = new ByteVigenereCipher().compileByteKey("k3y!");
+        byte[] data = new byte[5 * (int) INTERVAL + 123];
+        new Random(7).nextBytes(data);
+        Files.write(input, data);
+        
+        assertEquals(data.length, encryptor.encrypt(input, output, byteKey));
+        
+        byteKey.apply(data, 0, data.length, 0);
+        assertArrayEquals(data, Files.readAllBytes(output));
+    }
+    
+    /**
+     * Writes the input with a malformed byte at damageAt and runs until the
+     * decoder fails there, leaving the last checkpoint in place.
+     */
+    private void interruptedRun() throws IOException {
+        byte[] damaged = plaintext.clone();
+        damaged[damageAt] = (byte) 0xFF;
+        Files.write(input, damaged);
+        
+        try {
+            encryptor.encrypt(input, output, key);
+            fail("Expected the malformed byte to stop the run");
+        } catch (MalformedInputException e) {
+            assertTrue(Files.exists(CheckpointedFileEncryptor.sidecarFor(output)));
+        }
+    }
+    
+    private void repairInput() throws IOException {
+        FileTime modified = Files.getLastModifiedTime(input);
+        Files.write(input, plaintext);
+        Files.setLastModifiedTime(input, modified);
+    }
+    
+    private void assertMismatch(CompiledKey resumeKey, String reason) throws IOException {
+        try {
+            encryptor.encrypt(input, output, resumeKey);
+            fail("Expected the checkpoint to be rejected");
+        } catch (CheckpointMismatchException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(reason));
+            assertEquals(CheckpointedFileEncryptor.sidecarFor(output), e.getCheckpoint());
+        }
+    }
+    
+    private byte[] expectedCiphertext() {
+        char[] chars = new String(plaintext, StandardCharsets.UTF_8).toCharArray();
+        key.apply(chars, 0, chars.length, 0);
+        return new String(chars).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * About 400 KB of ASCII mixed with multi-byte characters, so buffer and
+     * checkpoint boundaries fall inside characters. The byte at damageAt is
+     * ASCII.
+     */
+    private static byte[] text() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 400_000; i++) {
+            text.append("Line ").append(i).append(": meet at the \u00a7 \u65e5\u672c gate \u20ac\ud83d\ude00\n");
+        }
+        text.append("x".repeat(2000));
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,262 @@
+package com.cipherforge.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.cipherforge.algorithms.ByteVigenereCipher;
+import com.cipherforge.algorithms.CaesarCipher;
+import com.cipherforge.algorithms.VigenereCipher;
+import com.cipherforge.core.ByteKey;
+import com.cipherforge.core.CompiledKey;
+import com.cipherforge.registry.CipherRegistry;
+
+public class CipherContainerTest {
+    private static final int CHUNK_SIZE = 7;
+    private static final int RECORD_SIZE = 12;
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private ForkJoinPool pool;
+    private CipherContainer container;
+    
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(3);
+        container = new CipherContainer(new CipherRegistry(), pool, CHUNK_SIZE);
+    }
+    
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+    
+    @Test
+    public void textRoundTripsWhenChunksCutMultiByteCharacters() throws IOException {
+        CompiledKey key = new VigenereCipher().compileKey("LEMON");
+        byte[] plaintext = multiByteText();
+        Path plain = write("plain.txt", plaintext);
+        Path sealed = folder.getRoot().toPath().resolve("plain.cfc");
+        Path opened = folder.getRoot().toPath().resolve("opened.txt");
+        
+        assertEquals(plaintext.length, container.encrypt(plain, sealed, key));
+        assertEquals(plaintext.length, container.decrypt(sealed, opened, key));
+        
+        assertArrayEquals(plaintext, Files.readAllBytes(opened));
+    }
+    
+    @Test
+    public void chunkKeyOffsetsMatchStreamingEncryption() throws IOException {
+        CompiledKey key = new VigenereCipher().compileKey("LEMON");
+        byte[] plaintext = multiByteText();
+        Path sealed = folder.getRoot().toPath().resolve("plain.cfc");
+        container.encrypt(write("plain.txt", plaintext), sealed, key);
+        
+        char[] chars = new String(plaintext, StandardCharsets.UTF_8).toCharArray();
+        key.apply(chars, 0, chars.length, 0);
+        
+        assertArrayEquals(new String(chars).getBytes(StandardCharsets.UTF_8), payloads(sealed));
+    }
+    
+    @Test
+    public void everyChunkFitsTheChunkSize() throws IOException {
+        Path sealed = folder.getRoot().toPath().resolve("plain.cfc");
+        container.encrypt(write("plain.txt", multiByteText()), sealed, new VigenereCipher().compileKey("LEMON"));
+        
+        assertEquals(CHUNK_SIZE, CipherContainer.readHeader(sealed).getChunkSize());
+        assertTrue(CipherContainer.verify(sealed) > 1);
+    }
+    
+    @Test
+    public void bytesRoundTripAndMatchStreamingEncryption() throws IOException {
+        ByteKey key = new ByteVigenereCipher().compileByteKey("k3y!");
+        byte[] plaintext = randomBytes(1000);
+        Path sealed = folder.getRoot().toPath().resolve("data.cfc");
+        Path opened = folder.getRoot().toPath().resolve("data.out");
+        
+        container.encrypt(write("data.bin", plaintext), sealed, key);
+        byte[] expected = plaintext.clone();
+        key.apply(expected, 0, expected.length, 0);
+        assertArrayEquals(expected, payloads(sealed));
+        
+        container.decrypt(sealed, opened, key);
+        assertArrayEquals(plaintext, Files.readAllBytes(opened));
+    }
+    
+    @Test
+    public void emptyInputRoundTrips() throws IOException {
+        CompiledKey key = new VigenereCipher().compileKey("LEMON");
+        Path sealed = folder.getRoot().toPath().resolve("empty.cfc");
+        Path opened = folder.getRoot().toPath().resolve("empty.txt");
+        
+        assertEquals(0, container.encrypt(write("empty", new byte[0]), sealed, key));
+        assertEquals(0, container.decrypt(sealed, opened, key));
+        assertEquals(0, CipherContainer.verify(sealed));
+    }
+    
+    @Test
+    public void wrongKeyIsRejectedAndOutputTruncated() throws IOException {
+        Path sealed = folder.getRoot().toPath().resolve("plain.cfc");
+        container.encrypt(write("plain.txt", multiByteText()), sealed, new VigenereCipher().compileKey("LEMON"));
+        Path opened = write("opened.txt", "stale".getBytes(StandardCharsets.UTF_8));
+        
+        try {
+            container.decrypt(sealed, opened, new VigenereCipher().compileKey("LIME"));
+            fail("Expected a wrong-key rejection");
+        } catch (InvalidContainerException e) {
+            assertEquals(0, e.getOffset());
+            assertTrue(e.getMessage(), e.getMessage().contains("different key"));
+        }
+        assertEquals(0, Files.size(opened));
+    }
+    
+    @Test
+    public void wrongCipherIsRejected() throws IOException {
+        Path sealed = folder.getRoot().toPath().resolve("plain.cfc");
+        container.encrypt(write("plain.txt", multiByteText()), sealed, new VigenereCipher().compileKey("LEMON"));
+        
+        try {
+            container.decrypt(sealed, folder.getRoot().toPath().resolve("opened.txt"), new CaesarCipher().compileKey("3"));
+            fail("Expected a wrong-cipher rejection");
+        } catch (InvalidContainerException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Vigenere Cipher"));
+        }
+    }
+    
+    @Test
+    public void damagedChunkIsReportedAtItsPosition() throws IOException {
+        ByteKey key = new ByteVigenereCipher().compileByteKey("k3y!");
+        Path sealed = folder.getRoot().toPath().resolve("data.cfc");
+        container.encrypt(write("data.bin", randomBytes(100)), sealed, key);
+        
+        long chunkStart = headerSize(sealed) + 3 * (RECORD_SIZE + CHUNK_SIZE);
+        byte[] damaged = Files.readAllBytes(sealed);
+        damaged[(int) chunkStart + RECORD_SIZE + 2] ^= 0x01;
+        Files.write(sealed, damaged);
+        
+        try {
+            CipherContainer.verify(sealed);
+            fail("Expected verify to find the damaged chunk");
+        } catch (InvalidContainerException e) {
+            assertEquals(chunkStart, e.getOffset());
+        }
+        
+        Path opened = folder.getRoot().toPath().resolve("data.out");
+        try {
+            container.decrypt(sealed, opened, key);
+            fail("Expected decrypt to find the damaged chunk");
+        } catch (InvalidContainerException e) {
+            assertEquals(chunkStart, e.getOffset());
+        }
+        assertEquals(0, Files.size(opened));
+    }
+    
+    @Test
+    public void damagedHeaderIsRejected() throws IOException {
+        Path sealed = folder.getRoot().toPath().resolve("plain.cfc");
+        container.encrypt(write("plain.txt", multiByteText()), sealed, new VigenereCipher().compileKey("LEMON"));
+        
+        byte[] damaged = Files.readAllBytes(sealed);
+        damaged[headerSize(sealed) - 6] ^= 0x01;
+        Files.write(sealed, damaged);
+        
+        try {
+            CipherContainer.readHeader(sealed);
+            fail("Expected a header checksum failure");
+        } catch (InvalidContainerException e) {
+            assertEquals(0, e.getOffset());
+        }
+    }
+    
+    @Test
+    public void truncatedContainerIsRejected() throws IOException {
+        Path sealed = folder.getRoot().toPath().resolve("plain.cfc");
+        container.encrypt(write("plain.txt", multiByteText()), sealed, new VigenereCipher().compileKey("LEMON"));
+        
+        byte[] whole = Files.readAllBytes(sealed);
+        byte[] cut = new byte[whole.length - RECORD_SIZE - 3];
+        System.arraycopy(whole, 0, cut, 0, cut.length);
+        Files.write(sealed, cut);
+        
+        try {
+            container.decrypt(sealed, folder.getRoot().toPath().resolve("opened.txt"),
+                    new VigenereCipher().compileKey("LEMON"));
+            fail("Expected a truncation failure");
+        } catch (InvalidContainerException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("truncated"));
+        }
+    }
+    
+    @Test
+    public void notAContainerIsRejected() throws IOException {
+        try {
+            CipherContainer.verify(write("plain.txt", multiByteText()));
+            fail("Expected a format failure");
+        } catch (InvalidContainerException e) {
+            assertEquals(0, e.getOffset());
+        }
+    }
+    
+    /**
+     * ASCII mixed with 2-, 3- and 4-byte UTF-8 sequences that are not letters,
+     * so that a 7-byte chunk boundary regularly falls inside a character.
+     */
+    private static byte[] multiByteText() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append("Attack at dawn ").append(i).append(" \u00a7 \u65e5\u672c \u20ac\ud83d\ude00 zebra\n");
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+    
+    private Path write(String name, byte[] content) throws IOException {
+        return Files.write(folder.getRoot().toPath().resolve(name), content);
+    }
+    
+    private static int headerSize(Path file) throws IOException {
+        return 6 + CipherContainer.readHeader(file).getAlgorithmId().getBytes(StandardCharsets.UTF_8).length + 8 + 4 + 4;
+    }
+    
+    /**
+     * The chunk payloads of a container, concatenated in file order.
+     */
+    private static byte[] payloads(Path file) throws IOException {
+        ByteBuffer container = ByteBuffer.wrap(Files.readAllBytes(file));
+        container.position(headerSize(file));
+        ByteArrayOutputStream payloads = new ByteArrayOutputStream();
+        
+        while (true) {
+            container.getInt();
+            int length = container.getInt();
+            container.getInt();
+            if (length == 0) {
+                return payloads.toByteArray();
+            }
+            payloads.write(container.array(), container.position(), length);
+            container.position(container.position() + length);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.cipherforge.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.cipherforge.algorithms.ByteVigenereCipher;
+import com.cipherforge.algorithms.VigenereCipher;
+import com.cipherforge.core.ByteKey;
+import com.cipherforge.core.CompiledKey;
+
+public class RandomAccessEncryptorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void byteKeyRangesWorkOnBinaryFiles() throws IOException {
+        byte[] data = new byte[300_000];
+        new Random(3).nextBytes(data);
+        Path file = Files.write(folder.getRoot().toPath().resolve("data.bin"), data);
+        ByteKey key = new ByteVigenereCipher().compileByteKey("k3y!");
+        
+        byte[] whole = data.clone();
+        key.apply(whole, 0, whole.length, 0);
+        
+        try (RandomAccessEncryptor encryptor = new RandomAccessEncryptor(file)) {
+            assertArrayEquals(Arrays.copyOfRange(whole, 123_457, 200_000), encryptor.encrypt(123_457, 76_543, key));
+        }
+    }
+    
+    @Test
+    public void letterKeyRangesMatchWholeFileEncryption() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 300_000; i++) {
+            text.append("Range ").append(i).append(" of the quick brown fox, 42!\n");
+        }
+        byte[] data = text.toString().getBytes(StandardCharsets.US_ASCII);
+        Path file = Files.write(folder.getRoot().toPath().resolve("plain.txt"), data);
+        CompiledKey key = new VigenereCipher().compileKey("LEMON");
+        
+        byte[] whole = data.clone();
+        key.apply(whole, 0, whole.length, 0);
+        
+        try (RandomAccessEncryptor encryptor = new RandomAccessEncryptor(file)) {
+            assertArrayEquals(Arrays.copyOfRange(whole, 150_001, 150_500), encryptor.encrypt(150_001, 499, key));
+        }
+    }
+    
+    @Test
+    public void letterKeyOnBinaryFileIsRejected() throws IOException {
+        Path file = Files.write(folder.getRoot().toPath().resolve("data.bin"), new byte[] { 'a', 'b', (byte) 0x80 });
+        
+        try (RandomAccessEncryptor encryptor = new RandomAccessEncryptor(file)) {
+            encryptor.encrypt(0, 2, new VigenereCipher().compileKey("LEMON"));
+            fail("Expected the non-ASCII file to be rejected");
+        } catch (NonAsciiFileException e) {
+        }
+    }
+}
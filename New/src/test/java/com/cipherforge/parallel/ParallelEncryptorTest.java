@@ -0,0 +1,137 @@
+package com.cipherforge.parallel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.cipherforge.algorithms.CaesarCipher;
+import com.cipherforge.algorithms.SubstitutionCipher;
+import com.cipherforge.algorithms.VigenereCipher;
+import com.cipherforge.core.CipherAlgorithm;
+import com.cipherforge.core.CipherResult;
+import com.cipherforge.core.CompiledKey;
+
+/**
+ * The parallel paths must produce exactly what the sequential cipher does.
+ * Small chunk sizes put many chunk boundaries, and so many prefix-sum key
+ * offsets, into short inputs.
+ */
+public class ParallelEncryptorTest {
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+    
+    @Test
+    public void chunkedBufferMatchesSequentialForEveryChunkSize() {
+        CompiledKey key = new VigenereCipher().compileKey("LEMONADE");
+        String text = text(5000);
+        
+        for (int chunkSize : new int[] { 1, 2, 7, 64, 4999, 5000, 6000 }) {
+            char[] parallel = text.toCharArray();
+            char[] sequential = text.toCharArray();
+            
+            int parallelNext = new ParallelEncryptor(pool, chunkSize).encrypt(parallel, 0, parallel.length, key, 0);
+            int sequentialNext = key.apply(sequential, 0, sequential.length, 0);
+            
+            assertArrayEquals("chunk size " + chunkSize, sequential, parallel);
+            assertEquals("chunk size " + chunkSize, sequentialNext, parallelNext);
+        }
+    }
+    
+    @Test
+    public void subRangeStartsAtTheGivenKeyIndex() {
+        CompiledKey key = new VigenereCipher().compileKey("LEMON");
+        String text = text(3000);
+        char[] parallel = text.toCharArray();
+        char[] sequential = text.toCharArray();
+        
+        int parallelNext = new ParallelEncryptor(pool, 11).encrypt(parallel, 100, 2500, key, 3);
+        int sequentialNext = key.apply(sequential, 100, 2500, 3);
+        
+        assertArrayEquals(sequential, parallel);
+        assertEquals(sequentialNext, parallelNext);
+    }
+    
+    @Test
+    public void everyCipherMatchesSequentialEncryption() {
+        String text = text(20_000);
+        ParallelEncryptor encryptor = new ParallelEncryptor(pool, 333);
+        
+        assertSameAsSequential(encryptor, new CaesarCipher(), text, "7");
+        assertSameAsSequential(encryptor, new VigenereCipher(), text, "Cryptography");
+        assertSameAsSequential(encryptor, new SubstitutionCipher(), text, "QWERTYUIOPASDFGHJKLZXCVBNM");
+    }
+    
+    @Test
+    public void streamMatchesSequentialAcrossBufferRefills() throws IOException {
+        CipherAlgorithm cipher = new VigenereCipher();
+        String text = text(50_000);
+        StringWriter output = new StringWriter();
+        
+        long written = new ParallelEncryptor(pool, 97).encrypt(cipher, new StringReader(text), output, "LEMON");
+        
+        assertEquals(text.length(), written);
+        assertEquals(cipher.encrypt(text, "LEMON").getCiphertext(), output.toString());
+    }
+    
+    @Test
+    public void inverseKeyRoundTrips() throws IOException {
+        CompiledKey key = new VigenereCipher().compileKey("LEMON");
+        String text = text(10_000);
+        ParallelEncryptor encryptor = new ParallelEncryptor(pool, 50);
+        
+        StringWriter encrypted = new StringWriter();
+        encryptor.encrypt(new StringReader(text), encrypted, key);
+        StringWriter decrypted = new StringWriter();
+        encryptor.encrypt(new StringReader(encrypted.toString()), decrypted, key.inverse());
+        
+        assertEquals(text, decrypted.toString());
+    }
+    
+    @Test
+    public void invalidKeyIsReported() throws IOException {
+        ParallelEncryptor encryptor = new ParallelEncryptor(pool, 16);
+        
+        assertFalse(encryptor.encrypt(new VigenereCipher(), "Hello", "not a key!").isSuccess());
+        assertEquals(-1, encryptor.encrypt(new VigenereCipher(), new StringReader("Hello"), new StringWriter(), "123"));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void chunkSizeMustBePositive() {
+        new ParallelEncryptor(pool, 0);
+    }
+    
+    private static void assertSameAsSequential(ParallelEncryptor encryptor, CipherAlgorithm cipher, String text,
+            String key) {
+        CipherResult parallel = encryptor.encrypt(cipher, text, key);
+        CipherResult sequential = cipher.encrypt(text, key);
+        
+        assertEquals(cipher.getName(), sequential.getCiphertext(), parallel.getCiphertext());
+    }
+    
+    /**
+     * Letters of both cases with runs of digits, punctuation and spaces, so
+     * chunks hold uneven letter counts.
+     */
+    private static String text(int length) {
+        String alphabet = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ      0123456789.,;!?\n";
+        Random random = new Random(length);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        return new String(chars);
+    }
+}
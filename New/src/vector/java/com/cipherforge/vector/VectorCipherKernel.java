@@ -0,0 +1,167 @@
+package com.cipherforge.vector;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import com.cipherforge.core.SubstitutionTable;
+import com.cipherforge.core.VectorKernel;
+
+/**
+ * Vector API kernel for the letter-shift ciphers. For each vector of ASCII
+ * bytes or chars, letters are found with range compares, rebased to 0-25,
+ * shifted with a masked add and a conditional subtract of 26, and blended
+ * back over the original lanes.
+ *
+ * With a multi-letter key the n-th letter in a vector needs the shift at
+ * keyIndex + n, where n counts only the letters before it. That count is an
+ * exclusive prefix sum of the letter mask (log2(lanes) shift-and-add steps),
+ * and it is used as a shuffle to pick each lane's shift out of the next
+ * lanes-many entries of a repeated shift array.
+ */
+public final class VectorCipherKernel implements VectorKernel {
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Short> CHARS = ShortVector.SPECIES_PREFERRED;
+    
+    private static final ByteVector BYTE_ZERO = ByteVector.zero(BYTES);
+    private static final ByteVector BYTE_LOWER_BASE = ByteVector.broadcast(BYTES, (byte) 'a');
+    private static final ShortVector CHAR_ZERO = ShortVector.zero(CHARS);
+    private static final ShortVector CHAR_LOWER_BASE = ShortVector.broadcast(CHARS, (short) 'a');
+    
+    public VectorCipherKernel() {
+        if (BYTES.vectorBitSize() < 128) {
+            throw new UnsupportedOperationException("No SIMD registers of at least 128 bits.");
+        }
+    }
+    
+    @Override
+    public Object prepare(int[] shifts) {
+        return new Shifts(shifts);
+    }
+    
+    @Override
+    public int apply(SubstitutionTable table, Object prepared, byte[] buffer, int offset, int length, int keyIndex) {
+        Shifts shifts = (Shifts) prepared;
+        int lanes = BYTES.length();
+        int end = offset + length;
+        int i = offset;
+        
+        if (shifts.period == 1) {
+            ByteVector shift = ByteVector.broadcast(BYTES, shifts.bytes[0]);
+            for (; i <= end - lanes; i += lanes) {
+                ByteVector v = ByteVector.fromArray(BYTES, buffer, i);
+                VectorMask<Byte> upper = v.compare(VectorOperators.GE, (byte) 'A').and(v.compare(VectorOperators.LE, (byte) 'Z'));
+                VectorMask<Byte> letters = upper.or(v.compare(VectorOperators.GE, (byte) 'a').and(v.compare(VectorOperators.LE, (byte) 'z')));
+                shift(v, upper, letters, shift).intoArray(buffer, i);
+            }
+            return table.applyScalar(buffer, i, end - i, keyIndex);
+        }
+        
+        for (; i <= end - lanes; i += lanes) {
+            ByteVector v = ByteVector.fromArray(BYTES, buffer, i);
+            VectorMask<Byte> upper = v.compare(VectorOperators.GE, (byte) 'A').and(v.compare(VectorOperators.LE, (byte) 'Z'));
+            VectorMask<Byte> letters = upper.or(v.compare(VectorOperators.GE, (byte) 'a').and(v.compare(VectorOperators.LE, (byte) 'z')));
+            if (!letters.anyTrue()) {
+                continue;
+            }
+            
+            ByteVector ones = BYTE_ZERO.blend((byte) 1, letters);
+            ByteVector prefix = ones;
+            for (int step = 1; step < lanes; step <<= 1) {
+                prefix = prefix.add(prefix.unslice(step));
+            }
+            
+            ByteVector shift = ByteVector.fromArray(BYTES, shifts.bytes, keyIndex).rearrange(prefix.sub(ones).toShuffle());
+            shift(v, upper, letters, shift).intoArray(buffer, i);
+            
+            keyIndex += letters.trueCount();
+            if (keyIndex >= shifts.period) {
+                keyIndex %= shifts.period;
+            }
+        }
+        
+        return table.applyScalar(buffer, i, end - i, keyIndex);
+    }
+    
+    @Override
+    public int apply(SubstitutionTable table, Object prepared, char[] buffer, int offset, int length, int keyIndex) {
+        Shifts shifts = (Shifts) prepared;
+        int lanes = CHARS.length();
+        int end = offset + length;
+        int i = offset;
+        
+        for (; i <= end - lanes; i += lanes) {
+            ShortVector v = ShortVector.fromCharArray(CHARS, buffer, i);
+            if (v.compare(VectorOperators.LT, (short) 0).or(v.compare(VectorOperators.GT, (short) 0x7F)).anyTrue()) {
+                keyIndex = table.applyScalar(buffer, i, lanes, keyIndex);
+                continue;
+            }
+            
+            VectorMask<Short> upper = v.compare(VectorOperators.GE, (short) 'A').and(v.compare(VectorOperators.LE, (short) 'Z'));
+            VectorMask<Short> letters = upper.or(v.compare(VectorOperators.GE, (short) 'a').and(v.compare(VectorOperators.LE, (short) 'z')));
+            if (!letters.anyTrue()) {
+                continue;
+            }
+            
+            ShortVector shift;
+            if (shifts.period == 1) {
+                shift = ShortVector.broadcast(CHARS, shifts.chars[0]);
+            } else {
+                ShortVector ones = CHAR_ZERO.blend((short) 1, letters);
+                ShortVector prefix = ones;
+                for (int step = 1; step < lanes; step <<= 1) {
+                    prefix = prefix.add(prefix.unslice(step));
+                }
+                shift = ShortVector.fromArray(CHARS, shifts.chars, keyIndex).rearrange(prefix.sub(ones).toShuffle());
+                
+                keyIndex += letters.trueCount();
+                if (keyIndex >= shifts.period) {
+                    keyIndex %= shifts.period;
+                }
+            }
+            
+            shift(v, upper, letters, shift).intoCharArray(buffer, i);
+        }
+        
+        return table.applyScalar(buffer, i, end - i, keyIndex);
+    }
+    
+    private static ByteVector shift(ByteVector v, VectorMask<Byte> upper, VectorMask<Byte> letters, ByteVector shift) {
+        ByteVector base = BYTE_LOWER_BASE.blend((byte) 'A', upper);
+        ByteVector rotated = v.sub(base).add(shift);
+        rotated = rotated.sub((byte) 26, rotated.compare(VectorOperators.GE, (byte) 26));
+        return v.blend(rotated.add(base), letters);
+    }
+    
+    private static ShortVector shift(ShortVector v, VectorMask<Short> upper, VectorMask<Short> letters, ShortVector shift) {
+        ShortVector base = CHAR_LOWER_BASE.blend((short) 'A', upper);
+        ShortVector rotated = v.sub(base).add(shift);
+        rotated = rotated.sub((short) 26, rotated.compare(VectorOperators.GE, (short) 26));
+        return v.blend(rotated.add(base), letters);
+    }
+    
+    /**
+     * The shift sequence repeated so that a full vector of shifts can be
+     * loaded starting at any key index.
+     */
+    private static final class Shifts {
+        final int period;
+        final byte[] bytes;
+        final short[] chars;
+        
+        Shifts(int[] shifts) {
+            period = shifts.length;
+            bytes = new byte[period + BYTES.length()];
+            chars = new short[period + CHARS.length()];
+            
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) Math.floorMod(shifts[i % period], 26);
+            }
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (short) Math.floorMod(shifts[i % period], 26);
+            }
+        }
+    }
+}